@@ -0,0 +1,45 @@
+// Carga de lectura para comparar el stack MVC y el perfil reactive con los mismos parametros.
+// Uso: k6 run -e BASE_URL=http://localhost:8080 -e USERNAME=admin -e PASSWORD=... load-tests/franchise-read.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+  scenarios: {
+    reads: {
+      executor: 'ramping-vus',
+      startVUs: 10,
+      stages: [
+        { duration: '30s', target: 200 },
+        { duration: '1m', target: 200 },
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+    http_req_duration: ['p(95)<500'],
+  },
+};
+
+export function setup() {
+  const login = http.post(`${BASE_URL}/api/v1/auth/login`,
+    JSON.stringify({ username: __ENV.USERNAME, password: __ENV.PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } });
+  check(login, { 'login ok': (r) => r.status === 200 });
+  const params = { headers: { Authorization: `Bearer ${login.json('token')}` } };
+  const franchises = http.get(`${BASE_URL}/api/v1/franchises`, params).json();
+  return { params, ids: franchises.map((franchise) => franchise.id) };
+}
+
+export default function (data) {
+  if (data.ids.length === 0) {
+    check(http.get(`${BASE_URL}/api/v1/franchises`, data.params), { 'list 200': (r) => r.status === 200 });
+    return;
+  }
+  const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+  check(http.get(`${BASE_URL}/api/v1/franchises/${id}`, data.params), { 'get 200': (r) => r.status === 200 });
+  check(http.get(`${BASE_URL}/api/v1/franchises/${id}/branches/top-products`, data.params),
+    { 'top products 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,89 @@
+package com.franchise.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.mapper.FranchiseMapper;
+import com.franchise.api.service.FranchiseResponseCache;
+import com.franchise.api.service.Versioned;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Per-request CPU of the {@code GET /api/v1/franchises/{id}} body: mapping and Jackson serialization on
+ * every request (the former path) against serving the pre-serialized bytes from {@link FranchiseResponseCache}.
+ * Single-threaded average time approximates CPU per request; add {@code -prof gc} to the JMH arguments for
+ * allocation per request. Run with {@code mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=FranchiseResponseBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FranchiseResponseBenchmark {
+
+    @Param({"5", "50"})
+    private int branches;
+
+    @Param({"20"})
+    private int productsPerBranch;
+
+    private Franchise franchise;
+    private ObjectMapper objectMapper;
+    private FranchiseResponseCache cache;
+    private Function<String, Versioned<Franchise>> loader;
+    private Function<String, Optional<String>> storedTag;
+
+    @Setup
+    public void setUp() {
+        List<Branch> items = new ArrayList<>(branches);
+        for (int b = 0; b < branches; b++) {
+            List<Product> products = new ArrayList<>(productsPerBranch);
+            for (int p = 0; p < productsPerBranch; p++) {
+                products.add(Product.builder().id("product-" + b + "-" + p).name("Product " + p).stock(p).build());
+            }
+            items.add(Branch.builder().id("branch-" + b).name("Branch " + b).products(products).build());
+        }
+        franchise = Franchise.builder().id("franchise-1").name("Benchmark").branches(items).version(1L).build();
+        objectMapper = new ObjectMapper();
+        cache = new FranchiseResponseCache(new FranchiseCacheProperties(), new SimpleMeterRegistry(), objectMapper);
+        loader = id -> new Versioned<>(franchise, "1");
+        storedTag = id -> Optional.of("1");
+        cache.get(franchise.getId(), storedTag, loader);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(FranchiseMapper.toResponse(franchise));
+    }
+
+    @Benchmark
+    public byte[] cachedJson() {
+        return cache.get(franchise.getId(), storedTag, loader).json();
+    }
+
+    @Benchmark
+    public byte[] cachedGzip() {
+        return cache.get(franchise.getId(), storedTag, loader).gzip();
+    }
+}
@@ -0,0 +1,79 @@
+package com.franchise.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.mapper.FranchiseJsonSerializer;
+import com.franchise.api.mapper.FranchiseMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a franchise through the response records ({@link FranchiseMapper} + Jackson) against writing
+ * the domain objects directly with {@link FranchiseJsonSerializer}. Output goes to a discarding stream so
+ * only mapping and serialization are measured. The benchmarks profile runs with {@code -prof gc}; compare
+ * {@code gc.alloc.rate.norm} (bytes per operation) between the two. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=FranchiseSerializationBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FranchiseSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int branches;
+
+    @Param({"1000"})
+    private int productsPerBranch;
+
+    private Franchise franchise;
+    private ObjectWriter responseWriter;
+    private ObjectWriter franchiseWriter;
+
+    @Setup
+    public void setUp() {
+        List<Branch> items = new ArrayList<>(branches);
+        for (int b = 0; b < branches; b++) {
+            List<Product> products = new ArrayList<>(productsPerBranch);
+            for (int p = 0; p < productsPerBranch; p++) {
+                products.add(Product.builder().id("product-" + b + "-" + p).name("Product " + p).stock(p).build());
+            }
+            items.add(Branch.builder().id("branch-" + b).name("Branch " + b).products(products).build());
+        }
+        franchise = Franchise.builder().id("franchise-1").name("Benchmark").branches(items).build();
+        ObjectMapper objectMapper = new ObjectMapper();
+        responseWriter = objectMapper.writerFor(FranchiseResponse.class);
+        franchiseWriter = objectMapper.copy().registerModule(FranchiseJsonSerializer.module()).writerFor(Franchise.class);
+    }
+
+    @Benchmark
+    public void mapThenSerialize() throws IOException {
+        responseWriter.writeValue(OutputStream.nullOutputStream(), FranchiseMapper.toResponse(franchise));
+    }
+
+    @Benchmark
+    public void streamDomain() throws IOException {
+        franchiseWriter.writeValue(OutputStream.nullOutputStream(), franchise);
+    }
+}
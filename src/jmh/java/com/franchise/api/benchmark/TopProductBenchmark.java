@@ -0,0 +1,120 @@
+package com.franchise.api.benchmark;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.mapper.FranchiseMapper;
+import com.franchise.api.repository.FranchiseRepositoryCustomImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top product per branch on a large embedded franchise: the former path, which loaded the whole document
+ * and scanned every product list in Java, against {@link FranchiseRepositoryCustomImpl#findTopProductPerBranch},
+ * which only reads the maintained top product of each branch. Both include the Mongo round trip, so the
+ * difference is mostly the document size on the wire and its decoding. Uses the server at
+ * {@code -Dbenchmark.mongodb.uri} when given, otherwise an embedded {@code mongod}. Run with
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=TopProductBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopProductBenchmark {
+
+    @Param({"10", "200"})
+    private int branches;
+
+    @Param({"1000"})
+    private int productsPerBranch;
+
+    private TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private FranchiseRepositoryCustomImpl repository;
+    private String franchiseId;
+
+    @Setup
+    public void setUp() {
+        String uri = System.getProperty("benchmark.mongodb.uri");
+        if (uri == null) {
+            mongod = Mongod.instance().start(Version.Main.V6_0);
+            ServerAddress address = mongod.current().getServerAddress();
+            uri = "mongodb://%s:%d".formatted(address.getHost(), address.getPort());
+        }
+        client = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(client, "top_product_benchmark_" + System.nanoTime());
+        repository = new FranchiseRepositoryCustomImpl(mongoTemplate);
+
+        List<Branch> items = new ArrayList<>(branches);
+        for (int b = 0; b < branches; b++) {
+            List<Product> products = new ArrayList<>(productsPerBranch);
+            for (int p = 0; p < productsPerBranch; p++) {
+                products.add(Product.builder().id("product-" + b + "-" + p).name("Product " + p).stock((p * 7919) % 10_000).build());
+            }
+            Branch branch = Branch.builder().id("branch-" + b).name("Branch " + b).active(b % 10 != 0).products(products).build();
+            branch.ensureStockSummary();
+            items.add(branch);
+        }
+        franchiseId = mongoTemplate.save(Franchise.builder().name("Benchmark").branches(items).build()).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+        if (mongod != null) {
+            mongod.close();
+        }
+    }
+
+    @Benchmark
+    public List<TopProductPerBranchResponse> loadAndScan() {
+        Franchise franchise = mongoTemplate.findById(franchiseId, Franchise.class);
+        if (franchise == null || Boolean.FALSE.equals(franchise.getActive())) {
+            return List.of();
+        }
+        return franchise.getBranches().stream()
+                .filter(Branch::isActive)
+                .map(branch -> {
+                    Optional<Product> topProduct = branch.getProducts().stream()
+                            .max(Comparator.comparingInt(Product::getStock));
+                    return topProduct.map(product -> new TopProductPerBranchResponse(
+                            branch.getId(), branch.getName(), FranchiseMapper.toProductResponse(product)));
+                })
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Benchmark
+    public List<TopProductPerBranchResponse> maintainedSummary() {
+        return repository.findTopProductPerBranch(franchiseId);
+    }
+}
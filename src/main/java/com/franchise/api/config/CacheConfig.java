@@ -0,0 +1,20 @@
+package com.franchise.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.service.FranchiseResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(FranchiseCacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public FranchiseResponseCache franchiseResponseCache(FranchiseCacheProperties properties,
+                                                         MeterRegistry meterRegistry,
+                                                         ObjectMapper objectMapper) {
+        return new FranchiseResponseCache(properties, meterRegistry, objectMapper);
+    }
+}
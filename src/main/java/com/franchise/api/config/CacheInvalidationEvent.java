@@ -0,0 +1,19 @@
+package com.franchise.api.config;
+
+/**
+ * Tells in-process caches that a document changed, locally or on another instance. A {@code null}
+ * {@code documentId} means every entry of the collection must be dropped.
+ */
+public record CacheInvalidationEvent(String collection, String documentId) {
+
+    public static final String FRANCHISES = "franchises";
+    public static final String USERS = "users";
+
+    public static CacheInvalidationEvent all(String collection) {
+        return new CacheInvalidationEvent(collection, null);
+    }
+
+    public boolean concerns(String candidate) {
+        return candidate.equals(collection);
+    }
+}
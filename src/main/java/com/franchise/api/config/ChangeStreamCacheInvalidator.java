@@ -0,0 +1,236 @@
+package com.franchise.api.config;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a change stream on the franchises and users collections and republishes every change as a
+ * {@link CacheInvalidationEvent}, so writes from other instances evict local caches. The resume token is
+ * stored per instance (at most once per second, and on shutdown), so a restart or reconnect resumes where
+ * it stopped; replayed events only cause redundant evictions. Changes to the products collection evict the
+ * owning franchise, or every franchise when the event does not carry it (deletes).
+ */
+@Component
+@ConditionalOnProperty(prefix = "franchise.cache.change-streams", name = "enabled", havingValue = "true")
+@Slf4j
+public class ChangeStreamCacheInvalidator implements SmartLifecycle {
+
+    private static final String PRODUCTS = "products";
+    private static final List<String> WATCHED = List.of(CacheInvalidationEvent.FRANCHISES, CacheInvalidationEvent.USERS, PRODUCTS);
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final long TOKEN_SAVE_INTERVAL_MS = 1000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String instanceId;
+    private final String tokenCollection;
+
+    private volatile boolean running;
+    private Thread worker;
+    private long lastTokenSave;
+
+    public ChangeStreamCacheInvalidator(MongoTemplate mongoTemplate,
+                                        ApplicationEventPublisher eventPublisher,
+                                        FranchiseCacheProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        FranchiseCacheProperties.ChangeStreams settings = properties.getChangeStreams();
+        this.instanceId = StringUtils.hasText(settings.getInstanceId()) ? settings.getInstanceId() : hostName();
+        this.tokenCollection = settings.getTokenCollection();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::watch, "cache-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(RETRY_DELAY.multipliedBy(5).toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = loadToken();
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open(resumeToken)) {
+                log.info("Watching {} for cache invalidation as {}", WATCHED, instanceId);
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                        // The stream is closed after an invalidate and cannot be resumed from its token.
+                        invalidateAll();
+                        resumeToken = null;
+                        saveToken(null);
+                        break;
+                    }
+                    if (change != null) {
+                        publish(change);
+                    }
+                    BsonDocument token = cursor.getResumeToken();
+                    if (token != null) {
+                        resumeToken = token;
+                        saveTokenPeriodically(token);
+                    }
+                }
+            } catch (MongoException ex) {
+                if (!running) {
+                    break;
+                }
+                if (ex.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    log.warn("Stored resume token is no longer in the oplog; clearing caches and starting from now");
+                    invalidateAll();
+                    resumeToken = null;
+                    saveToken(null);
+                } else {
+                    log.warn("Cache change stream failed, resuming in {}: {}", RETRY_DELAY, ex.getMessage());
+                }
+                pause();
+            } catch (RuntimeException ex) {
+                // Anything else (decoding, a failing listener) must not end the only thread keeping caches in step.
+                if (!running) {
+                    break;
+                }
+                log.error("Cache change stream stopped unexpectedly, resuming in {}", RETRY_DELAY, ex);
+                pause();
+            }
+        }
+        if (resumeToken != null) {
+            saveToken(resumeToken);
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(BsonDocument resumeToken) {
+        var stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", WATCHED))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        return (resumeToken == null ? stream : stream.resumeAfter(resumeToken)).cursor();
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        String collection = change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+        if (PRODUCTS.equals(collection)) {
+            Document product = change.getFullDocument();
+            eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.FRANCHISES,
+                    product == null ? null : product.getString("franchiseId")));
+            return;
+        }
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE, DELETE -> eventPublisher.publishEvent(
+                    new CacheInvalidationEvent(collection, documentId(change.getDocumentKey())));
+            case DROP, RENAME -> eventPublisher.publishEvent(CacheInvalidationEvent.all(collection));
+            default -> invalidateAll();
+        }
+    }
+
+    private void invalidateAll() {
+        List.of(CacheInvalidationEvent.FRANCHISES, CacheInvalidationEvent.USERS).forEach(collection -> eventPublisher.publishEvent(CacheInvalidationEvent.all(collection)));
+    }
+
+    private String documentId(BsonDocument documentKey) {
+        BsonValue id = documentKey == null ? null : documentKey.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private BsonDocument loadToken() {
+        try {
+            BsonDocument stored = tokens().find(Filters.eq("_id", instanceId)).first();
+            return stored == null || !stored.isDocument("token") ? null : stored.getDocument("token");
+        } catch (MongoException ex) {
+            log.warn("Could not read the cache resume token, starting from now: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private void saveTokenPeriodically(BsonDocument token) {
+        long now = System.currentTimeMillis();
+        if (now - lastTokenSave >= TOKEN_SAVE_INTERVAL_MS) {
+            saveToken(token);
+            lastTokenSave = now;
+        }
+    }
+
+    private void saveToken(BsonDocument token) {
+        try {
+            if (token == null) {
+                tokens().deleteOne(Filters.eq("_id", instanceId));
+                return;
+            }
+            tokens().replaceOne(Filters.eq("_id", instanceId),
+                    new BsonDocument("_id", new BsonString(instanceId))
+                            .append("token", token)
+                            .append("updatedAt", new BsonDateTime(System.currentTimeMillis())),
+                    new ReplaceOptions().upsert(true));
+        } catch (MongoException ex) {
+            log.debug("Could not store the cache resume token: {}", ex.getMessage());
+        }
+    }
+
+    private MongoCollection<BsonDocument> tokens() {
+        return mongoTemplate.getDb().getCollection(tokenCollection, BsonDocument.class);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RETRY_DELAY.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "local";
+        }
+    }
+}
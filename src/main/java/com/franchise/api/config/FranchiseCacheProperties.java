@@ -0,0 +1,66 @@
+package com.franchise.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "franchise.cache")
+public class FranchiseCacheProperties {
+
+    /**
+     * Kill switch: when false every read goes to Mongo and nothing is cached.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of serialized franchise responses kept in memory.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Time after a write to the cache when an entry expires. Hits are checked against the stored version, so this
+     * only bounds how long unread entries stay in memory.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * Also keep a gzip copy of serialized responses, sent to clients that accept it.
+     */
+    private boolean gzip = true;
+
+    /**
+     * Smallest serialized response, in bytes, worth storing compressed.
+     */
+    private int gzipMinSize = 1024;
+
+    /**
+     * How long user details resolved for JWT requests are reused; user writes on this instance evict them at once.
+     * Only used with change streams enabled, which evict them for writes made on other instances.
+     */
+    private Duration userTtl = Duration.ofSeconds(30);
+
+    private ChangeStreams changeStreams = new ChangeStreams();
+
+    @Getter
+    @Setter
+    public static class ChangeStreams {
+        /**
+         * Watch the franchises, products and users collections to evict entries written by other instances. Needs a replica set.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Key of this instance's persisted resume token; defaults to the host name.
+         */
+        private String instanceId;
+
+        /**
+         * Collection holding one resume token per instance.
+         */
+        private String tokenCollection = "cache_resume_tokens";
+    }
+}
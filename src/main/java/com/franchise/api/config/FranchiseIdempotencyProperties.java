@@ -0,0 +1,39 @@
+package com.franchise.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "franchise.idempotency")
+public class FranchiseIdempotencyProperties {
+
+    /**
+     * Honour the Idempotency-Key header on franchise POST endpoints.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long a key and its stored response are kept; repeats within this window replay the response.
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * How long an unfinished execution holds its key without renewal; the claiming instance renews it every
+     * third of this while the execution runs, so a repeat only takes the key over once that instance is gone.
+     */
+    private Duration lease = Duration.ofSeconds(30);
+
+    /**
+     * How long a repeat waits for the first execution of its key before answering 409.
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Completed responses kept in memory in front of the idempotency_keys collection.
+     */
+    private long cacheMaximumSize = 10_000;
+}
@@ -0,0 +1,63 @@
+package com.franchise.api.config;
+
+import com.franchise.api.dto.ImportFormat;
+import com.franchise.api.dto.ImportReport;
+import com.franchise.api.service.FranchiseImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports a CSV or NDJSON file when the application is started with {@code --import-franchises=<path>}.
+ * The format follows the file extension ({@code .ndjson}, {@code .jsonl}, optionally {@code .gz}) unless
+ * {@code --import-format} names it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FranchiseImportRunner implements ApplicationRunner {
+
+    public static final String OPTION = "import-franchises";
+    public static final String FORMAT_OPTION = "import-format";
+
+    private static final int LOGGED_ERRORS = 20;
+
+    private final FranchiseImportService franchiseImportService;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> paths = args.getOptionValues(OPTION);
+        if (paths == null) {
+            return;
+        }
+        for (String value : paths) {
+            Path path = Path.of(value);
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            boolean gzip = name.endsWith(".gz");
+            List<String> format = args.getOptionValues(FORMAT_OPTION);
+            ImportFormat importFormat = franchiseImportService.resolveFormat(
+                    format == null || format.isEmpty() ? null : format.get(0),
+                    name.contains(".ndjson") || name.contains(".jsonl") ? "application/x-ndjson" : null);
+            try (InputStream file = Files.newInputStream(path);
+                 InputStream input = gzip ? new GZIPInputStream(file, 65536) : file) {
+                ImportReport report = franchiseImportService.importFranchises(input, importFormat);
+                report.errors().stream()
+                        .limit(LOGGED_ERRORS)
+                        .forEach(error -> log.warn("{} line {}: {}", path, error.line(), error.message()));
+                if (report.failed() > LOGGED_ERRORS) {
+                    log.warn("{}: {} more rows were rejected", path, report.failed() - LOGGED_ERRORS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.franchise.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "franchise.persistence")
+public class FranchisePersistenceProperties {
+
+    private Concurrency concurrency = new Concurrency();
+
+    private Products products = new Products();
+
+    private StockBuffer stockBuffer = new StockBuffer();
+
+    private Imports imports = new Imports();
+
+    private Exports exports = new Exports();
+
+    @Getter
+    @Setter
+    public static class Concurrency {
+        /**
+         * Attempts for a read-modify-write operation before reporting a conflict to the client.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Base delay before the first retry; doubled on each attempt and randomized with jitter.
+         */
+        private long initialBackoffMs = 20;
+
+        /**
+         * Upper bound for the delay between retries.
+         */
+        private long maxBackoffMs = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class Products {
+        /**
+         * Where branch products live: embedded in the franchise document or in the separate products collection.
+         */
+        private ProductStorageMode storage = ProductStorageMode.EMBEDDED;
+
+        /**
+         * Products written per bulk request when migrating embedded products to the collection.
+         */
+        private int migrationBatchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class StockBuffer {
+        /**
+         * Buffers single-product stock updates in memory and writes them behind in coalesced batches.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Delay between flushes of the buffered stock writes.
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * Buffered products that trigger a flush before the interval elapses.
+         */
+        private int maxPending = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Imports {
+        /**
+         * Rows validated and written together; existing franchises are read once per batch.
+         */
+        private int batchSize = 5000;
+
+        /**
+         * Row errors listed in the import report; further errors are only counted.
+         */
+        private int maxReportedErrors = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Exports {
+        /**
+         * Async timeout of a streamed export; other async requests keep the container default.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+}
@@ -0,0 +1,25 @@
+package com.franchise.api.config;
+
+import com.franchise.api.repository.CollectionProductStore;
+import com.franchise.api.repository.EmbeddedProductStore;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.ProductStore;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Configuration
+@EnableConfigurationProperties({FranchisePersistenceProperties.class, FranchiseIdempotencyProperties.class})
+public class MongoConfig {
+
+    @Bean
+    public ProductStore productStore(FranchisePersistenceProperties properties,
+                                     FranchiseRepository franchiseRepository,
+                                     MongoTemplate mongoTemplate) {
+        return switch (properties.getProducts().getStorage()) {
+            case EMBEDDED -> new EmbeddedProductStore(franchiseRepository);
+            case COLLECTION -> new CollectionProductStore(franchiseRepository, mongoTemplate);
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.franchise.api.config;
+
+import com.franchise.api.domain.BranchProduct;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.IdempotencyRecord;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.MongoCollations;
+import com.franchise.api.security.UserAccount;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Backfills versions and stock summaries and ensures indexes once every singleton exists, before the context
+ * finishes refreshing and the web server starts, so no request runs without them. Any failure aborts startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoSchemaInitializer implements SmartInitializingSingleton {
+
+    public static final String FRANCHISE_NAME_INDEX = "name_ci";
+    public static final String USERNAME_INDEX = "username_ci";
+    public static final String EMAIL_INDEX = "email_ci";
+    public static final String PRODUCT_NAME_INDEX = "franchise_branch_name_ci";
+    public static final String PRODUCT_STOCK_INDEX = "franchise_branch_stock";
+    public static final String PRODUCT_SEARCH_INDEX = "name_id_ci";
+    public static final String EMBEDDED_PRODUCT_SEARCH_INDEX = "branches_products_name_ci";
+    public static final String IDEMPOTENCY_EXPIRY_INDEX = "expires_at_ttl";
+
+    private final MongoTemplate mongoTemplate;
+    private final FranchiseRepository franchiseRepository;
+    private final FranchisePersistenceProperties properties;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            initializeFranchiseVersions();
+            ensureCaseInsensitiveIndexes();
+            ensureIdempotencyIndexes();
+            if (properties.getProducts().getStorage() == ProductStorageMode.COLLECTION) {
+                ensureProductIndexes();
+            } else {
+                ensureEmbeddedProductIndexes();
+                backfillStockSummaries();
+            }
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Could not prepare the MongoDB schema: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void ensureEmbeddedProductIndexes() {
+        // Product name search scans this multikey index over the prefix range under the same collation.
+        mongoTemplate.indexOps(Franchise.class).ensureIndex(new Index()
+                .on("branches.products.name", Sort.Direction.ASC)
+                .named(EMBEDDED_PRODUCT_SEARCH_INDEX)
+                .collation(MongoCollations.caseInsensitive()));
+    }
+
+    private void backfillStockSummaries() {
+        long updated = franchiseRepository.backfillStockSummaries();
+        if (updated > 0) {
+            log.info("Computed branch stock summaries on {} franchise documents", updated);
+        }
+    }
+
+    private void ensureProductIndexes() {
+        IndexOperations products = mongoTemplate.indexOps(BranchProduct.class);
+        products.ensureIndex(new Index()
+                .on("franchiseId", Sort.Direction.ASC)
+                .on("branchId", Sort.Direction.ASC)
+                .on("name", Sort.Direction.ASC)
+                .unique()
+                .named(PRODUCT_NAME_INDEX)
+                .collation(MongoCollations.caseInsensitive()));
+        // Collated indexes only serve queries with the same collation, so plain lookups and the
+        // top-product sort need their own binary index.
+        products.ensureIndex(new Index()
+                .on("franchiseId", Sort.Direction.ASC)
+                .on("branchId", Sort.Direction.ASC)
+                .on("stock", Sort.Direction.DESC)
+                .on("name", Sort.Direction.ASC)
+                .named(PRODUCT_STOCK_INDEX));
+        // Product name search walks this index in (name, id) order, so a page costs a range scan of its size.
+        products.ensureIndex(new Index()
+                .on("name", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named(PRODUCT_SEARCH_INDEX)
+                .collation(MongoCollations.caseInsensitive()));
+    }
+
+    private void ensureIdempotencyIndexes() {
+        // Each record carries its own expiry, so the TTL index expires documents at expiresAt.
+        mongoTemplate.indexOps(IdempotencyRecord.class).ensureIndex(new Index()
+                .on("expiresAt", Sort.Direction.ASC)
+                .expire(Duration.ZERO)
+                .named(IDEMPOTENCY_EXPIRY_INDEX));
+    }
+
+    private void ensureCaseInsensitiveIndexes() {
+        // Fails fast on existing case-variant duplicates: those must be cleaned up before uniqueness can hold.
+        mongoTemplate.indexOps(Franchise.class).ensureIndex(caseInsensitiveUnique("name", FRANCHISE_NAME_INDEX));
+        mongoTemplate.indexOps(UserAccount.class).ensureIndex(caseInsensitiveUnique("username", USERNAME_INDEX));
+        mongoTemplate.indexOps(UserAccount.class).ensureIndex(caseInsensitiveUnique("email", EMAIL_INDEX).sparse());
+    }
+
+    private Index caseInsensitiveUnique(String field, String name) {
+        return new Index()
+                .on(field, Sort.Direction.ASC)
+                .unique()
+                .named(name)
+                .collation(MongoCollations.caseInsensitive());
+    }
+
+    private void initializeFranchiseVersions() {
+        // Documents written before @Version was introduced would otherwise be treated as new and re-inserted.
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("version").exists(false)),
+                Update.update("version", 0L),
+                Franchise.class);
+        if (result.getModifiedCount() > 0) {
+            log.info("Initialized version field on {} franchise documents", result.getModifiedCount());
+        }
+    }
+}
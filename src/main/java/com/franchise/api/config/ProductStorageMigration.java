@@ -0,0 +1,111 @@
+package com.franchise.api.config;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.BranchProduct;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves embedded {@code branches.products} into the products collection when the application is started
+ * with {@code --migrate-products}. Products are upserted by id in batches, so the migration can be re-run;
+ * a franchise's embedded array is only cleared once all of its products were written and the document has
+ * not changed meanwhile.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductStorageMigration implements ApplicationRunner {
+
+    public static final String OPTION = "migrate-products";
+
+    private final MongoTemplate mongoTemplate;
+    private final FranchisePersistenceProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        if (properties.getProducts().getStorage() != ProductStorageMode.COLLECTION) {
+            log.warn("Skipping product migration: set franchise.persistence.products.storage=collection first");
+            return;
+        }
+        Query pending = Query.query(Criteria.where("branches.products.0").exists(true));
+        pending.fields().include("id");
+        List<String> franchiseIds = mongoTemplate.find(pending, Franchise.class).stream()
+                .map(Franchise::getId)
+                .toList();
+        int migrated = 0;
+        for (String franchiseId : franchiseIds) {
+            if (migrate(franchiseId)) {
+                migrated++;
+            }
+        }
+        log.info("Migrated embedded products of {} of {} franchises", migrated, franchiseIds.size());
+    }
+
+    private boolean migrate(String franchiseId) {
+        Franchise franchise = mongoTemplate.findById(franchiseId, Franchise.class);
+        if (franchise == null) {
+            return false;
+        }
+        List<BranchProduct> products = new ArrayList<>();
+        for (Branch branch : nullSafe(franchise.getBranches())) {
+            for (Product product : nullSafe(branch.getProducts())) {
+                products.add(BranchProduct.builder()
+                        .id(product.getId())
+                        .franchiseId(franchiseId)
+                        .branchId(branch.getId())
+                        .name(product.getName())
+                        .stock(product.getStock())
+                        .build());
+            }
+        }
+        int batchSize = Math.max(1, properties.getProducts().getMigrationBatchSize());
+        try {
+            for (int from = 0; from < products.size(); from += batchSize) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BranchProduct.class);
+                for (BranchProduct product : products.subList(from, Math.min(from + batchSize, products.size()))) {
+                    bulk.upsert(Query.query(Criteria.where("id").is(product.getId())), new Update()
+                            .set("franchiseId", product.getFranchiseId())
+                            .set("branchId", product.getBranchId())
+                            .set("name", product.getName())
+                            .set("stock", product.getStock()));
+                }
+                bulk.execute();
+            }
+        } catch (BulkOperationException | DuplicateKeyException ex) {
+            log.warn("Could not migrate products of franchise {}; embedded products were kept: {}", franchiseId, ex.getMessage());
+            return false;
+        }
+        UpdateResult cleared = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(franchiseId).and("version").is(franchise.getVersion())),
+                new Update().set("branches.$[].products", List.of()).unset("branches.$[].stockSummary").inc("version", 1L),
+                Franchise.class);
+        if (cleared.getModifiedCount() == 0) {
+            log.warn("Franchise {} changed during the product migration; run the migration again", franchiseId);
+            return false;
+        }
+        return true;
+    }
+
+    private <T> List<T> nullSafe(List<T> items) {
+        return items == null ? List.of() : items;
+    }
+}
@@ -0,0 +1,6 @@
+package com.franchise.api.config;
+
+public enum ProductStorageMode {
+    EMBEDDED,
+    COLLECTION
+}
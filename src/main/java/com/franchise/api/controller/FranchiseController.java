@@ -1,10 +1,19 @@
 package com.franchise.api.controller;
 
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.dto.AdjustProductStockRequest;
 import com.franchise.api.dto.BranchResponse;
+import com.franchise.api.dto.BulkStockUpdateRequest;
+import com.franchise.api.dto.BulkStockUpdateResponse;
 import com.franchise.api.dto.CreateBranchRequest;
 import com.franchise.api.dto.CreateFranchiseRequest;
 import com.franchise.api.dto.CreateProductRequest;
+import com.franchise.api.dto.ExportFormat;
 import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.ImportFormat;
+import com.franchise.api.dto.ImportReport;
+import com.franchise.api.dto.PageResponse;
 import com.franchise.api.dto.ProductResponse;
 import com.franchise.api.dto.TopProductPerBranchResponse;
 import com.franchise.api.dto.UpdateBranchNameRequest;
@@ -13,9 +22,20 @@ import com.franchise.api.dto.UpdateFranchiseNameRequest;
 import com.franchise.api.dto.UpdateFranchiseStatusRequest;
 import com.franchise.api.dto.UpdateProductNameRequest;
 import com.franchise.api.dto.UpdateProductStockRequest;
+import com.franchise.api.mapper.FranchiseFields;
+import com.franchise.api.mapper.TopProductFields;
+import com.franchise.api.service.FranchiseExportService;
+import com.franchise.api.service.FranchiseImportService;
 import com.franchise.api.service.FranchiseService;
+import com.franchise.api.service.SerializedResponse;
+import com.franchise.api.service.Versioned;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,19 +43,42 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/franchises")
 @RequiredArgsConstructor
 public class FranchiseController {
 
+    // Clients may keep the body but must revalidate it with If-None-Match before reuse.
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = FranchiseController.class.getName() + ".exportTimeout";
+
     private final FranchiseService franchiseService;
+    private final FranchiseExportService franchiseExportService;
+    private final FranchiseImportService franchiseImportService;
+    private final FranchisePersistenceProperties persistenceProperties;
 
     @PostMapping
     public ResponseEntity<FranchiseResponse> createFranchise(@Valid @RequestBody CreateFranchiseRequest request) {
@@ -48,30 +91,128 @@ public class FranchiseController {
     }
 
     @GetMapping
-    public ResponseEntity<List<FranchiseResponse>> getFranchises() {
-        return ResponseEntity.ok(franchiseService.getAllFranchises());
+    public ResponseEntity<byte[]> getFranchises(@RequestParam(required = false) String fields,
+                                                @RequestParam(required = false) Integer depth,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FranchiseFields selection = FranchiseFields.parse(fields, depth);
+        if (ifNoneMatch != null) {
+            Optional<String> matched = FranchiseETags.findMatch(ifNoneMatch, franchiseService.getFranchisesTag());
+            if (matched.isPresent()) {
+                return notModified(matched.get());
+            }
+        }
+        return serialized(franchiseService.getSerializedFranchises(selection), false);
+    }
+
+    @GetMapping(params = {"limit", "view!=summary"})
+    public ResponseEntity<PageResponse<FranchiseResponse>> getFranchisePage(@RequestParam int limit,
+                                                                            @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(franchiseService.getFranchisePage(cursor, limit));
+    }
+
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<PageResponse<FranchiseSummaryResponse>> getFranchiseSummaries(@RequestParam(required = false) Integer limit,
+                                                                                        @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(franchiseService.getFranchiseSummaries(cursor, limit));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFranchises(@RequestParam(required = false) Boolean active,
+                                                                  @RequestParam(required = false) String format,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                                  NativeWebRequest webRequest) {
+        ExportFormat exportFormat = franchiseExportService.resolveFormat(format);
+        extendAsyncTimeout(webRequest);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(output, 8192)) {
+                    franchiseExportService.export(compressed, active, exportFormat);
+                }
+            } else {
+                franchiseExportService.export(output, active, exportFormat);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"franchises-%s.ndjson\""
+                        .formatted(exportFormat.name().toLowerCase(Locale.ROOT)));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Raises the async timeout for this request only; the timeout is applied when the streaming body
+     * starts, after the adapter has reset it to the container default.
+     */
+    private void extendAsyncTimeout(NativeWebRequest webRequest) {
+        long timeout = persistenceProperties.getExports().getTimeout().toMillis();
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        if (request instanceof AsyncWebRequest asyncRequest) {
+                            asyncRequest.setTimeout(timeout);
+                        }
+                    }
+                });
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<ImportReport> importFranchises(@RequestParam(required = false) String format,
+                                                        @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                        @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+                                                        InputStream body) throws IOException {
+        ImportFormat importFormat = franchiseImportService.resolveFormat(format, contentType);
+        InputStream input = contentEncoding != null && contentEncoding.toLowerCase(Locale.ROOT).contains("gzip")
+                ? new GZIPInputStream(body, 8192)
+                : body;
+        return ResponseEntity.ok(franchiseImportService.importFranchises(input, importFormat));
     }
 
     @GetMapping("/{franchiseId}")
-    public ResponseEntity<FranchiseResponse> getFranchise(@PathVariable String franchiseId) {
-        return ResponseEntity.ok(franchiseService.getFranchiseById(franchiseId));
+    public ResponseEntity<byte[]> getFranchise(@PathVariable String franchiseId,
+                                               @RequestParam(required = false) String fields,
+                                               @RequestParam(required = false) Integer depth,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        FranchiseFields selection = FranchiseFields.parse(fields, depth);
+        if (ifNoneMatch != null) {
+            Optional<String> matched = franchiseService.findFranchiseTag(franchiseId)
+                    .flatMap(tag -> FranchiseETags.findMatch(ifNoneMatch, tag));
+            if (matched.isPresent()) {
+                return notModified(matched.get());
+            }
+        }
+        return serialized(franchiseService.getSerializedFranchise(franchiseId, selection), acceptsGzip(acceptEncoding));
+    }
+
+    @GetMapping(value = "/{franchiseId}", params = "view=summary")
+    public ResponseEntity<FranchiseSummaryResponse> getFranchiseSummary(@PathVariable String franchiseId) {
+        return ResponseEntity.ok(franchiseService.getFranchiseSummary(franchiseId));
     }
 
     @PatchMapping("/{franchiseId}")
     public ResponseEntity<FranchiseResponse> updateFranchiseName(@PathVariable String franchiseId,
+                                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                                  @Valid @RequestBody UpdateFranchiseNameRequest request) {
-        return ResponseEntity.ok(franchiseService.updateFranchiseName(franchiseId, request));
+        return versioned(franchiseService.updateFranchiseName(franchiseId, request, FranchiseETags.expectedTag(ifMatch)));
     }
 
     @PatchMapping("/{franchiseId}/status")
     public ResponseEntity<FranchiseResponse> updateFranchiseStatus(@PathVariable String franchiseId,
+                                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                                    @Valid @RequestBody UpdateFranchiseStatusRequest request) {
-        return ResponseEntity.ok(franchiseService.updateFranchiseStatus(franchiseId, request));
+        return versioned(franchiseService.updateFranchiseStatus(franchiseId, request, FranchiseETags.expectedTag(ifMatch)));
     }
 
     @DeleteMapping("/{franchiseId}")
-    public ResponseEntity<Void> deleteFranchise(@PathVariable String franchiseId) {
-        franchiseService.deleteFranchise(franchiseId);
+    public ResponseEntity<Void> deleteFranchise(@PathVariable String franchiseId,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        franchiseService.deleteFranchise(franchiseId, FranchiseETags.expectedTag(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -89,21 +230,24 @@ public class FranchiseController {
     @PatchMapping("/{franchiseId}/branches/{branchId}")
     public ResponseEntity<BranchResponse> updateBranchName(@PathVariable String franchiseId,
                                                            @PathVariable String branchId,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                            @Valid @RequestBody UpdateBranchNameRequest request) {
-        return ResponseEntity.ok(franchiseService.updateBranchName(franchiseId, branchId, request));
+        return ResponseEntity.ok(franchiseService.updateBranchName(franchiseId, branchId, request, FranchiseETags.expectedTag(ifMatch)));
     }
 
     @PatchMapping("/{franchiseId}/branches/{branchId}/status")
     public ResponseEntity<BranchResponse> updateBranchStatus(@PathVariable String franchiseId,
                                                              @PathVariable String branchId,
+                                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                              @Valid @RequestBody UpdateBranchStatusRequest request) {
-        return ResponseEntity.ok(franchiseService.updateBranchStatus(franchiseId, branchId, request));
+        return ResponseEntity.ok(franchiseService.updateBranchStatus(franchiseId, branchId, request, FranchiseETags.expectedTag(ifMatch)));
     }
 
     @DeleteMapping("/{franchiseId}/branches/{branchId}")
     public ResponseEntity<Void> deleteBranch(@PathVariable String franchiseId,
-                                             @PathVariable String branchId) {
-        franchiseService.deleteBranch(franchiseId, branchId);
+                                             @PathVariable String branchId,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        franchiseService.deleteBranch(franchiseId, branchId, FranchiseETags.expectedTag(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -123,28 +267,88 @@ public class FranchiseController {
     public ResponseEntity<ProductResponse> updateProductStock(@PathVariable String franchiseId,
                                                               @PathVariable String branchId,
                                                               @PathVariable String productId,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                               @Valid @RequestBody UpdateProductStockRequest request) {
-        return ResponseEntity.ok(franchiseService.updateProductStock(franchiseId, branchId, productId, request));
+        return ResponseEntity.ok(franchiseService.updateProductStock(franchiseId, branchId, productId, request,
+                FranchiseETags.expectedTag(ifMatch)));
+    }
+
+    @PostMapping("/{franchiseId}/branches/{branchId}/products/{productId}/stock/adjust")
+    public ResponseEntity<ProductResponse> adjustProductStock(@PathVariable String franchiseId,
+                                                              @PathVariable String branchId,
+                                                              @PathVariable String productId,
+                                                              @Valid @RequestBody AdjustProductStockRequest request) {
+        return ResponseEntity.ok(franchiseService.adjustProductStock(franchiseId, branchId, productId, request));
+    }
+
+    @PostMapping("/stock/bulk")
+    public ResponseEntity<BulkStockUpdateResponse> bulkUpdateStock(@Valid @RequestBody BulkStockUpdateRequest request) {
+        return ResponseEntity.ok(franchiseService.bulkUpdateStock(request));
     }
 
     @PatchMapping("/{franchiseId}/branches/{branchId}/products/{productId}")
     public ResponseEntity<ProductResponse> updateProductName(@PathVariable String franchiseId,
                                                               @PathVariable String branchId,
                                                               @PathVariable String productId,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                               @Valid @RequestBody UpdateProductNameRequest request) {
-        return ResponseEntity.ok(franchiseService.updateProductName(franchiseId, branchId, productId, request));
+        return ResponseEntity.ok(franchiseService.updateProductName(franchiseId, branchId, productId, request,
+                FranchiseETags.expectedTag(ifMatch)));
     }
 
     @DeleteMapping("/{franchiseId}/branches/{branchId}/products/{productId}")
     public ResponseEntity<Void> deleteProduct(@PathVariable String franchiseId,
                                               @PathVariable String branchId,
-                                              @PathVariable String productId) {
-        franchiseService.deleteProduct(franchiseId, branchId, productId);
+                                              @PathVariable String productId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        franchiseService.deleteProduct(franchiseId, branchId, productId, FranchiseETags.expectedTag(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{franchiseId}/branches/top-products")
-    public ResponseEntity<List<TopProductPerBranchResponse>> getTopProductPerBranch(@PathVariable String franchiseId) {
-        return ResponseEntity.ok(franchiseService.getTopProductPerBranch(franchiseId));
+    public ResponseEntity<List<?>> getTopProductPerBranch(@PathVariable String franchiseId,
+                                                          @RequestParam(required = false) String fields,
+                                                          @RequestParam(required = false) Integer depth) {
+        TopProductFields selection = TopProductFields.parse(fields, depth);
+        List<TopProductPerBranchResponse> topProducts = franchiseService.getTopProductPerBranch(franchiseId);
+        return ResponseEntity.ok(selection.isAll() ? topProducts : selection.apply(topProducts));
+    }
+
+    private <T> ResponseEntity<T> versioned(Versioned<T> versioned) {
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .eTag(FranchiseETags.format(versioned.tag()))
+                .body(versioned.body());
+    }
+
+    /**
+     * Writes cached JSON as is; the gzip copy is a separate representation with its own entity tag.
+     */
+    private ResponseEntity<byte[]> serialized(SerializedResponse response, boolean acceptsGzip) {
+        boolean gzip = acceptsGzip && response.gzip() != null;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(REVALIDATE)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(FranchiseETags.format(response.tag(), gzip));
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.json());
+    }
+
+    /**
+     * Echoes the validator the client sent, which identifies the representation it already holds.
+     */
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(REVALIDATE)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(etag)
+                .build();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
     }
 }
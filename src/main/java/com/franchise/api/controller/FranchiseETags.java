@@ -0,0 +1,68 @@
+package com.franchise.api.controller;
+
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.exception.PreconditionFailedException;
+import org.springframework.http.ETag;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Entity-tag handling for franchise resources. Tags are the raw values produced by the service and are
+ * sent quoted; the gzip representation carries a {@code -gzip} suffix, which is ignored when comparing.
+ * {@code If-None-Match} uses weak comparison and {@code If-Match} strong comparison.
+ */
+final class FranchiseETags {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    private FranchiseETags() {
+    }
+
+    static String format(String tag) {
+        return format(tag, false);
+    }
+
+    static String format(String tag, boolean gzip) {
+        return new ETag(gzip ? tag + GZIP_SUFFIX : tag, false).formattedTag();
+    }
+
+    /**
+     * The entity tag from {@code If-None-Match} that is still current, if any.
+     */
+    static Optional<String> findMatch(String ifNoneMatch, String tag) {
+        for (ETag candidate : ETag.parse(ifNoneMatch)) {
+            if (candidate.isWildcard()) {
+                return Optional.of(format(tag));
+            }
+            if (tag.equals(stripEncoding(candidate.tag()))) {
+                return Optional.of(candidate.formattedTag());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Raw tag an {@code If-Match} header requires, or {@code null} when the header is absent or {@code *}.
+     */
+    static String expectedTag(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+        if (tags.size() != 1) {
+            throw new BadRequestException("If-Match must contain exactly one entity tag");
+        }
+        if (tags.get(0).weak()) {
+            throw new PreconditionFailedException("If-Match requires a strong entity tag");
+        }
+        return stripEncoding(tags.get(0).tag());
+    }
+
+    private static String stripEncoding(String tag) {
+        return tag.endsWith(GZIP_SUFFIX) ? tag.substring(0, tag.length() - GZIP_SUFFIX.length()) : tag;
+    }
+}
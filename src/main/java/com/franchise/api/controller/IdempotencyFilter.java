@@ -0,0 +1,227 @@
+package com.franchise.api.controller;
+
+import com.franchise.api.domain.IdempotencyRecord;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.exception.ConflictException;
+import com.franchise.api.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Makes franchise {@code POST} requests that carry an {@code Idempotency-Key} header safe to retry: the first
+ * execution's response is stored and replayed, marked with {@code Idempotent-Replayed: true}, for repeats of
+ * the same key by the same user on the same path. A 5xx response or an exception releases the key instead.
+ * Registered as a plain servlet filter, so it runs after Spring Security has authenticated the request.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "franchise.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String PATH_PREFIX = "/api/v1/franchises";
+    // Imports are streamed and already safe to repeat; buffering them to fingerprint the body is not.
+    private static final String IMPORT_PATH = PATH_PREFIX + "/import";
+    private static final List<String> STORED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.LOCATION, HttpHeaders.ETAG);
+
+    private final IdempotencyService idempotencyService;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService,
+                             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.idempotencyService = idempotencyService;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !request.getRequestURI().startsWith(request.getContextPath() + PATH_PREFIX)
+                || request.getRequestURI().startsWith(request.getContextPath() + IMPORT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            exceptionResolver.resolveException(request, response, null,
+                    new BadRequestException("Idempotency-Key must have between 1 and %d characters".formatted(MAX_KEY_LENGTH)));
+            return;
+        }
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        Principal principal = request.getUserPrincipal();
+        String scopedKey = sha256((principal == null ? "" : principal.getName()) + '\n' + request.getRequestURI() + '\n' + key);
+        String fingerprint = sha256(body);
+
+        Optional<IdempotencyRecord> earlier;
+        try {
+            earlier = idempotencyService.begin(scopedKey, fingerprint);
+        } catch (BadRequestException | ConflictException ex) {
+            exceptionResolver.resolveException(request, response, null, ex);
+            return;
+        }
+        if (earlier.isPresent()) {
+            replay(earlier.get(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), captured);
+            if (captured.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+                idempotencyService.complete(scopedKey, fingerprint, captured.getStatus(), storedHeaders(captured), captured.getContentAsByteArray());
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyService.abandon(scopedKey);
+            }
+            captured.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.getStatus());
+        if (record.getHeaders() != null) {
+            record.getHeaders().forEach(response::setHeader);
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = record.getBody() == null ? new byte[0] : record.getBody();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private Map<String, String> storedHeaders(ContentCachingResponseWrapper response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : STORED_HEADERS) {
+            String value = HttpHeaders.CONTENT_TYPE.equals(name) ? response.getContentType() : response.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Serves the body that was read to fingerprint the request.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body is already in memory, so it is always ready: the listener is called back at once
+                 * instead of through the container's non-blocking read.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        listener.onError(ex);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
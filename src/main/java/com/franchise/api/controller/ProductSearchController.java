@@ -0,0 +1,28 @@
+package com.franchise.api.controller;
+
+import com.franchise.api.dto.PageResponse;
+import com.franchise.api.dto.ProductSearchResult;
+import com.franchise.api.service.FranchiseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/products")
+@RequiredArgsConstructor
+public class ProductSearchController {
+
+    private final FranchiseService franchiseService;
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<ProductSearchResult>> searchProducts(@RequestParam(required = false) String q,
+                                                                          @RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(franchiseService.searchProducts(q, cursor, limit));
+    }
+}
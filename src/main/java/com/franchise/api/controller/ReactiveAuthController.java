@@ -0,0 +1,54 @@
+package com.franchise.api.controller;
+
+import com.franchise.api.dto.AuthRequest;
+import com.franchise.api.dto.AuthResponse;
+import com.franchise.api.security.JwtService;
+import com.franchise.api.security.ReactiveUserAccountRepository;
+import com.franchise.api.security.UserAccount;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Login for the {@code reactive} profile. Password reset and user administration stay on the servlet API.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+    private final ReactiveUserAccountRepository userAccountRepository;
+
+    @PostMapping("/login")
+    public Mono<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.username(), request.password()))
+                .flatMap(authentication -> {
+                    UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+                    String token = jwtService.generateToken(userDetails);
+                    long expiresAt = System.currentTimeMillis() + jwtService.getExpirationInMs();
+                    List<String> roles = userDetails.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .map(authority -> authority.replaceFirst("^ROLE_", ""))
+                            .toList();
+                    return userAccountRepository.findByUsernameIgnoreCase(userDetails.getUsername())
+                            .map(UserAccount::isPasswordChangeRequired)
+                            .defaultIfEmpty(false)
+                            .map(passwordChangeRequired -> new AuthResponse(token, userDetails.getUsername(), roles,
+                                    expiresAt, passwordChangeRequired));
+                });
+    }
+}
@@ -0,0 +1,162 @@
+package com.franchise.api.controller;
+
+import com.franchise.api.dto.AdjustProductStockRequest;
+import com.franchise.api.dto.BranchResponse;
+import com.franchise.api.dto.CreateBranchRequest;
+import com.franchise.api.dto.CreateFranchiseRequest;
+import com.franchise.api.dto.CreateProductRequest;
+import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.dto.UpdateBranchNameRequest;
+import com.franchise.api.dto.UpdateBranchStatusRequest;
+import com.franchise.api.dto.UpdateFranchiseNameRequest;
+import com.franchise.api.dto.UpdateFranchiseStatusRequest;
+import com.franchise.api.dto.UpdateProductNameRequest;
+import com.franchise.api.dto.UpdateProductStockRequest;
+import com.franchise.api.service.ReactiveFranchiseService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/franchises")
+@RequiredArgsConstructor
+public class ReactiveFranchiseController {
+
+    private final ReactiveFranchiseService franchiseService;
+
+    @PostMapping
+    public Mono<ResponseEntity<FranchiseResponse>> createFranchise(@Valid @RequestBody CreateFranchiseRequest request,
+                                                                   ServerHttpRequest httpRequest) {
+        return franchiseService.createFranchise(request)
+                .map(response -> ResponseEntity.created(location(httpRequest, response.id())).body(response));
+    }
+
+    @GetMapping
+    public Flux<FranchiseResponse> getFranchises() {
+        return franchiseService.getAllFranchises();
+    }
+
+    @GetMapping("/{franchiseId}")
+    public Mono<FranchiseResponse> getFranchise(@PathVariable String franchiseId) {
+        return franchiseService.getFranchiseById(franchiseId);
+    }
+
+    @PatchMapping("/{franchiseId}")
+    public Mono<FranchiseResponse> updateFranchiseName(@PathVariable String franchiseId,
+                                                       @Valid @RequestBody UpdateFranchiseNameRequest request) {
+        return franchiseService.updateFranchiseName(franchiseId, request);
+    }
+
+    @PatchMapping("/{franchiseId}/status")
+    public Mono<FranchiseResponse> updateFranchiseStatus(@PathVariable String franchiseId,
+                                                         @Valid @RequestBody UpdateFranchiseStatusRequest request) {
+        return franchiseService.updateFranchiseStatus(franchiseId, request);
+    }
+
+    @DeleteMapping("/{franchiseId}")
+    public Mono<ResponseEntity<Void>> deleteFranchise(@PathVariable String franchiseId) {
+        return franchiseService.deleteFranchise(franchiseId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @PostMapping("/{franchiseId}/branches")
+    public Mono<ResponseEntity<BranchResponse>> addBranch(@PathVariable String franchiseId,
+                                                          @Valid @RequestBody CreateBranchRequest request,
+                                                          ServerHttpRequest httpRequest) {
+        return franchiseService.addBranch(franchiseId, request)
+                .map(response -> ResponseEntity.created(location(httpRequest, response.id())).body(response));
+    }
+
+    @PatchMapping("/{franchiseId}/branches/{branchId}")
+    public Mono<BranchResponse> updateBranchName(@PathVariable String franchiseId,
+                                                 @PathVariable String branchId,
+                                                 @Valid @RequestBody UpdateBranchNameRequest request) {
+        return franchiseService.updateBranchName(franchiseId, branchId, request);
+    }
+
+    @PatchMapping("/{franchiseId}/branches/{branchId}/status")
+    public Mono<BranchResponse> updateBranchStatus(@PathVariable String franchiseId,
+                                                   @PathVariable String branchId,
+                                                   @Valid @RequestBody UpdateBranchStatusRequest request) {
+        return franchiseService.updateBranchStatus(franchiseId, branchId, request);
+    }
+
+    @DeleteMapping("/{franchiseId}/branches/{branchId}")
+    public Mono<ResponseEntity<Void>> deleteBranch(@PathVariable String franchiseId,
+                                                   @PathVariable String branchId) {
+        return franchiseService.deleteBranch(franchiseId, branchId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @PostMapping("/{franchiseId}/branches/{branchId}/products")
+    public Mono<ResponseEntity<ProductResponse>> addProduct(@PathVariable String franchiseId,
+                                                            @PathVariable String branchId,
+                                                            @Valid @RequestBody CreateProductRequest request,
+                                                            ServerHttpRequest httpRequest) {
+        return franchiseService.addProduct(franchiseId, branchId, request)
+                .map(response -> ResponseEntity.created(location(httpRequest, response.id())).body(response));
+    }
+
+    @PatchMapping("/{franchiseId}/branches/{branchId}/products/{productId}/stock")
+    public Mono<ProductResponse> updateProductStock(@PathVariable String franchiseId,
+                                                    @PathVariable String branchId,
+                                                    @PathVariable String productId,
+                                                    @Valid @RequestBody UpdateProductStockRequest request) {
+        return franchiseService.updateProductStock(franchiseId, branchId, productId, request);
+    }
+
+    @PostMapping("/{franchiseId}/branches/{branchId}/products/{productId}/stock/adjust")
+    public Mono<ProductResponse> adjustProductStock(@PathVariable String franchiseId,
+                                                    @PathVariable String branchId,
+                                                    @PathVariable String productId,
+                                                    @Valid @RequestBody AdjustProductStockRequest request) {
+        return franchiseService.adjustProductStock(franchiseId, branchId, productId, request);
+    }
+
+    @PatchMapping("/{franchiseId}/branches/{branchId}/products/{productId}")
+    public Mono<ProductResponse> updateProductName(@PathVariable String franchiseId,
+                                                   @PathVariable String branchId,
+                                                   @PathVariable String productId,
+                                                   @Valid @RequestBody UpdateProductNameRequest request) {
+        return franchiseService.updateProductName(franchiseId, branchId, productId, request);
+    }
+
+    @DeleteMapping("/{franchiseId}/branches/{branchId}/products/{productId}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable String franchiseId,
+                                                    @PathVariable String branchId,
+                                                    @PathVariable String productId) {
+        return franchiseService.deleteProduct(franchiseId, branchId, productId)
+                .then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @GetMapping("/{franchiseId}/branches/top-products")
+    public Mono<List<TopProductPerBranchResponse>> getTopProductPerBranch(@PathVariable String franchiseId) {
+        return franchiseService.getTopProductPerBranch(franchiseId).collectList();
+    }
+
+    private URI location(ServerHttpRequest request, String id) {
+        return UriComponentsBuilder.fromUri(request.getURI())
+                .path("/{id}")
+                .buildAndExpand(id)
+                .toUri();
+    }
+}
@@ -8,6 +8,7 @@ import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Getter
 @Setter
@@ -25,4 +26,82 @@ public class Branch {
 
     @Builder.Default
     private List<Product> products = new ArrayList<>();
+
+    private BranchStockSummary stockSummary;
+
+    /**
+     * Plain scans: every request maps a fresh aggregate and looks up one or two children, so a hash index
+     * would cost more to build than the scan it replaces (see {@code BranchLookupBenchmark}).
+     */
+    public Optional<Product> findProduct(String productId) {
+        if (productId == null) {
+            return Optional.empty();
+        }
+        for (Product product : ensureProducts()) {
+            if (productId.equals(product.getId())) {
+                return Optional.of(product);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Product> findProductByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        for (Product product : ensureProducts()) {
+            if (name.equalsIgnoreCase(product.getName())) {
+                return Optional.of(product);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void addProduct(Product product) {
+        List<Product> current = ensureProducts();
+        BranchStockSummary summary = ensureStockSummary();
+        current.add(product);
+        summary.added(product);
+    }
+
+    public boolean removeProduct(String productId) {
+        Product product = findProduct(productId).orElse(null);
+        if (product == null) {
+            return false;
+        }
+        BranchStockSummary summary = ensureStockSummary();
+        products.removeIf(candidate -> productId.equals(candidate.getId()));
+        summary.removed(product, products);
+        return true;
+    }
+
+    public void renameProduct(Product product, String name) {
+        BranchStockSummary summary = ensureStockSummary();
+        product.setName(name);
+        summary.renamed(product, ensureProducts());
+    }
+
+    public void updateStock(Product product, int stock) {
+        BranchStockSummary summary = ensureStockSummary();
+        int previousStock = product.getStock();
+        product.setStock(stock);
+        summary.stockChanged(product, previousStock, ensureProducts());
+    }
+
+    /**
+     * Returns the maintained summary, computing it from the loaded products when the document has none yet.
+     */
+    public BranchStockSummary ensureStockSummary() {
+        if (stockSummary == null) {
+            stockSummary = BranchStockSummary.of(ensureProducts());
+        }
+        return stockSummary;
+    }
+
+    private List<Product> ensureProducts() {
+        if (products == null) {
+            products = new ArrayList<>();
+        }
+        return products;
+    }
 }
@@ -0,0 +1,35 @@
+package com.franchise.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A product stored outside its franchise document, used when products are kept in their own collection.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "products")
+public class BranchProduct {
+
+    @Id
+    private String id;
+
+    private String franchiseId;
+
+    private String branchId;
+
+    private String name;
+
+    private int stock;
+
+    // Bumped by every product write, so a write can be made conditional on the product being unchanged.
+    private Long version;
+}
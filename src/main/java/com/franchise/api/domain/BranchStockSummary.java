@@ -0,0 +1,103 @@
+package com.franchise.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Stock figures of a branch kept next to its products, so top-product queries never read product arrays.
+ * Updates are incremental; only removing, renaming or lowering the stock of the top product rescans the
+ * branch. The top product is the one with the highest stock, ties going to the name that sorts first, so the
+ * result does not depend on the order of earlier writes; the Mongo pipelines apply the same rule.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchStockSummary {
+
+    private int productCount;
+
+    private long totalStock;
+
+    private Product topProduct;
+
+    public static BranchStockSummary of(List<Product> products) {
+        BranchStockSummary summary = new BranchStockSummary();
+        summary.recompute(products);
+        return summary;
+    }
+
+    void added(Product product) {
+        productCount++;
+        totalStock += product.getStock();
+        if (topProduct == null || outranks(product, topProduct)) {
+            topProduct = copyOf(product);
+        }
+    }
+
+    void removed(Product product, List<Product> remaining) {
+        if (isTop(product)) {
+            recompute(remaining);
+            return;
+        }
+        productCount--;
+        totalStock -= product.getStock();
+    }
+
+    void renamed(Product product, List<Product> products) {
+        if (isTop(product)) {
+            recompute(products);
+        } else if (topProduct == null || outranks(product, topProduct)) {
+            topProduct = copyOf(product);
+        }
+    }
+
+    void stockChanged(Product product, int previousStock, List<Product> products) {
+        if (isTop(product) && product.getStock() < previousStock) {
+            recompute(products);
+            return;
+        }
+        totalStock += product.getStock() - previousStock;
+        if (isTop(product) || topProduct == null || outranks(product, topProduct)) {
+            topProduct = copyOf(product);
+        }
+    }
+
+    private void recompute(List<Product> products) {
+        productCount = 0;
+        totalStock = 0;
+        topProduct = null;
+        for (Product product : products) {
+            added(product);
+        }
+    }
+
+    private boolean isTop(Product product) {
+        return topProduct != null && topProduct.getId() != null && topProduct.getId().equals(product.getId());
+    }
+
+    /**
+     * Higher stock wins; on equal stock the name that sorts first, compared as Mongo compares strings.
+     */
+    static boolean outranks(Product candidate, Product current) {
+        if (candidate.getStock() != current.getStock()) {
+            return candidate.getStock() > current.getStock();
+        }
+        String name = candidate.getName() == null ? "" : candidate.getName();
+        return name.compareTo(current.getName() == null ? "" : current.getName()) < 0;
+    }
+
+    private static Product copyOf(Product product) {
+        return Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .stock(product.getStock())
+                .build();
+    }
+}
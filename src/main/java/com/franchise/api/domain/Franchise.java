@@ -6,10 +6,12 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Getter
 @Setter
@@ -29,4 +31,50 @@ public class Franchise {
 
     @Builder.Default
     private List<Branch> branches = new ArrayList<>();
+
+    @Version
+    private Long version;
+
+    public Optional<Branch> findBranch(String branchId) {
+        if (branchId == null) {
+            return Optional.empty();
+        }
+        for (Branch branch : ensureBranches()) {
+            if (branchId.equals(branch.getId())) {
+                return Optional.of(branch);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Branch> findBranchByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        for (Branch branch : ensureBranches()) {
+            if (name.equalsIgnoreCase(branch.getName())) {
+                return Optional.of(branch);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void addBranch(Branch branch) {
+        ensureBranches().add(branch);
+    }
+
+    public boolean removeBranch(String branchId) {
+        return ensureBranches().removeIf(branch -> branchId.equals(branch.getId()));
+    }
+
+    public void renameBranch(Branch branch, String name) {
+        branch.setName(name);
+    }
+
+    private List<Branch> ensureBranches() {
+        if (branches == null) {
+            branches = new ArrayList<>();
+        }
+        return branches;
+    }
 }
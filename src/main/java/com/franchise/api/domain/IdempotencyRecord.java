@@ -0,0 +1,50 @@
+package com.franchise.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A request executed under an {@code Idempotency-Key}: claimed while it runs, then holding the response to
+ * replay. Documents are removed by a TTL index on {@code expiresAt}.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    private String id;
+
+    /**
+     * Digest of the request body, so a key reused for a different request is rejected.
+     */
+    private String fingerprint;
+
+    private boolean completed;
+
+    private Instant startedAt;
+
+    /**
+     * Until when an unfinished execution holds the key; renewed by the claiming instance while it runs.
+     */
+    private Instant leaseExpiresAt;
+
+    private Instant expiresAt;
+
+    private int status;
+
+    private Map<String, String> headers;
+
+    private byte[] body;
+}
@@ -0,0 +1,6 @@
+package com.franchise.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public record AdjustProductStockRequest(@NotNull Integer delta) {
+}
@@ -0,0 +1,4 @@
+package com.franchise.api.dto;
+
+public record BulkStockUpdateItem(String franchiseId, String branchId, String productId, Integer stock, Integer delta) {
+}
@@ -0,0 +1,9 @@
+package com.franchise.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkStockUpdateRequest(@NotEmpty @Size(max = 10000) List<BulkStockUpdateItem> items) {
+}
@@ -0,0 +1,6 @@
+package com.franchise.api.dto;
+
+import java.util.List;
+
+public record BulkStockUpdateResponse(int total, int updated, int failed, List<BulkStockUpdateResult> results) {
+}
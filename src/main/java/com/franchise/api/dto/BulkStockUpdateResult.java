@@ -0,0 +1,10 @@
+package com.franchise.api.dto;
+
+public record BulkStockUpdateResult(int index,
+                                    String franchiseId,
+                                    String branchId,
+                                    String productId,
+                                    BulkStockUpdateStatus status,
+                                    Integer stock,
+                                    String message) {
+}
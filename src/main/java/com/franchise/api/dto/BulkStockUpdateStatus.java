@@ -0,0 +1,9 @@
+package com.franchise.api.dto;
+
+public enum BulkStockUpdateStatus {
+    UPDATED,
+    INVALID,
+    NOT_FOUND,
+    INSUFFICIENT_STOCK,
+    CONFLICT
+}
@@ -0,0 +1,6 @@
+package com.franchise.api.dto;
+
+public enum ExportFormat {
+    FRANCHISE,
+    PRODUCT
+}
@@ -0,0 +1,4 @@
+package com.franchise.api.dto;
+
+public record FranchiseSummaryResponse(String id, String name, boolean active, int branchCount, int productCount) {
+}
@@ -0,0 +1,6 @@
+package com.franchise.api.dto;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
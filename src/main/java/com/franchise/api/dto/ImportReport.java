@@ -0,0 +1,16 @@
+package com.franchise.api.dto;
+
+import java.util.List;
+
+public record ImportReport(long rows,
+                           long imported,
+                           long failed,
+                           long skipped,
+                           long franchisesCreated,
+                           long branchesCreated,
+                           long productsCreated,
+                           long elapsedMs,
+                           long rowsPerSecond,
+                           List<ImportRowError> errors,
+                           boolean errorsTruncated) {
+}
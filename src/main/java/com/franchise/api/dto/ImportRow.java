@@ -0,0 +1,7 @@
+package com.franchise.api.dto;
+
+/**
+ * One imported line: a franchise, optionally one of its branches and optionally one product of that branch.
+ */
+public record ImportRow(String franchise, String branch, String product, Integer stock) {
+}
@@ -0,0 +1,4 @@
+package com.franchise.api.dto;
+
+public record ImportRowError(long line, String message) {
+}
@@ -0,0 +1,6 @@
+package com.franchise.api.dto;
+
+import java.util.List;
+
+public record PageResponse<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,12 @@
+package com.franchise.api.dto;
+
+public record ProductExportLine(String franchiseId,
+                                String franchiseName,
+                                boolean franchiseActive,
+                                String branchId,
+                                String branchName,
+                                boolean branchActive,
+                                String productId,
+                                String productName,
+                                int stock) {
+}
@@ -0,0 +1,10 @@
+package com.franchise.api.dto;
+
+public record ProductSearchResult(String franchiseId,
+                                  String franchiseName,
+                                  String branchId,
+                                  String branchName,
+                                  String productId,
+                                  String productName,
+                                  int stock) {
+}
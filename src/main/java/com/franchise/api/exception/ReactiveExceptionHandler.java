@@ -0,0 +1,84 @@
+package com.franchise.api.exception;
+
+import com.franchise.api.dto.ApiError;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * WebFlux counterpart of {@link GlobalExceptionHandler}, producing the same {@link ApiError} body.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ApiError> handleResourceNotFound(ResourceNotFoundException ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), exchange, List.of());
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiError> handleConflict(ConflictException ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.CONFLICT, ex.getMessage(), exchange, List.of());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiError> handlePreconditionFailed(PreconditionFailedException ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), exchange, List.of());
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ApiError> handleBadRequest(BadRequestException ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), exchange, List.of());
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ApiError> handleAuthentication(AuthenticationException ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.UNAUTHORIZED, ex.getMessage(), exchange, List.of());
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ApiError> handleAccessDenied(AccessDeniedException ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.FORBIDDEN, "Access denied", exchange, List.of());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiError> handleValidationErrors(WebExchangeBindException ex, ServerWebExchange exchange) {
+        List<String> details = ex.getFieldErrors().stream()
+                .map(this::formatValidationError)
+                .toList();
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, "Validation failed", exchange, details);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ApiError> handleResponseStatus(ResponseStatusException ex, ServerWebExchange exchange) {
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        return buildErrorResponse(status, ex.getReason(), exchange, List.of());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiError> handleGeneric(Exception ex, ServerWebExchange exchange) {
+        return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage(), exchange, List.of());
+    }
+
+    private ResponseEntity<ApiError> buildErrorResponse(HttpStatus status, String message, ServerWebExchange exchange, List<String> details) {
+        String path = exchange.getRequest().getPath().value();
+        ApiError error = new ApiError(path, status.value(), status.getReasonPhrase(), message, details, OffsetDateTime.now());
+        return ResponseEntity.status(status).body(error);
+    }
+
+    private String formatValidationError(FieldError fieldError) {
+        return "%s %s".formatted(fieldError.getField(), fieldError.getDefaultMessage());
+    }
+}
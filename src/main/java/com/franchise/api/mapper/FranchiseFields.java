@@ -0,0 +1,154 @@
+package com.franchise.api.mapper;
+
+import com.franchise.api.exception.BadRequestException;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldset over the {@code FranchiseResponse} tree, parsed from the {@code fields} and {@code depth}
+ * query parameters. {@code fields} lists dotted paths such as {@code name,branches.name,branches.products.stock};
+ * naming an object ({@code branches}, {@code branches.products}) selects all of its fields. {@code depth}
+ * cuts the tree: 0 keeps only franchise fields, 1 adds branches without products, 2 is the full tree.
+ * The selection drives both the Mongo projection and {@link FranchiseJsonSerializer}.
+ */
+public final class FranchiseFields {
+
+    public static final FranchiseFields ALL = new FranchiseFields(null, null, null);
+
+    public static final int MAX_DEPTH = 2;
+
+    private static final String BRANCHES = "branches";
+    private static final String PRODUCTS = "products";
+    private static final Set<String> FRANCHISE_FIELDS = Set.of("id", "name", "active", BRANCHES);
+    private static final Set<String> BRANCH_FIELDS = Set.of("id", "name", "active", PRODUCTS);
+    private static final Set<String> PRODUCT_FIELDS = Set.of("id", "name", "stock");
+
+    // null means every field of that level
+    private final Set<String> franchise;
+    private final Set<String> branch;
+    private final Set<String> product;
+
+    private FranchiseFields(Set<String> franchise, Set<String> branch, Set<String> product) {
+        this.franchise = franchise;
+        this.branch = branch;
+        this.product = product;
+    }
+
+    public static FranchiseFields parse(String fields, Integer depth) {
+        if (depth != null && (depth < 0 || depth > MAX_DEPTH)) {
+            throw new BadRequestException("Depth must be between 0 and %d".formatted(MAX_DEPTH));
+        }
+        if (!StringUtils.hasText(fields) && (depth == null || depth == MAX_DEPTH)) {
+            return ALL;
+        }
+        Set<String> franchise = null;
+        Set<String> branch = null;
+        Set<String> product = null;
+        if (StringUtils.hasText(fields)) {
+            franchise = new HashSet<>();
+            branch = new HashSet<>();
+            product = new HashSet<>();
+            boolean allBranch = false;
+            boolean allProduct = false;
+            for (String raw : fields.split(",")) {
+                String path = raw.trim();
+                if (path.isEmpty()) {
+                    continue;
+                }
+                String[] segments = path.split("\\.", -1);
+                if (segments.length == 1 && FRANCHISE_FIELDS.contains(segments[0])) {
+                    franchise.add(segments[0]);
+                    allBranch |= BRANCHES.equals(segments[0]);
+                    allProduct |= BRANCHES.equals(segments[0]);
+                } else if (segments.length == 2 && BRANCHES.equals(segments[0]) && BRANCH_FIELDS.contains(segments[1])) {
+                    franchise.add(BRANCHES);
+                    branch.add(segments[1]);
+                    allProduct |= PRODUCTS.equals(segments[1]);
+                } else if (segments.length == 3 && BRANCHES.equals(segments[0]) && PRODUCTS.equals(segments[1])
+                        && PRODUCT_FIELDS.contains(segments[2])) {
+                    franchise.add(BRANCHES);
+                    branch.add(PRODUCTS);
+                    product.add(segments[2]);
+                } else {
+                    throw new BadRequestException("Unknown field '%s'".formatted(path));
+                }
+            }
+            branch = allBranch ? null : branch;
+            product = allProduct ? null : product;
+        }
+        if (depth != null && depth < 1) {
+            franchise = without(franchise, FRANCHISE_FIELDS, BRANCHES);
+        }
+        if (depth != null && depth < 2) {
+            branch = without(branch, BRANCH_FIELDS, PRODUCTS);
+        }
+        return new FranchiseFields(franchise, branch, product);
+    }
+
+    public boolean isAll() {
+        return franchise == null && branch == null && product == null;
+    }
+
+    public boolean franchise(String field) {
+        return franchise == null || franchise.contains(field);
+    }
+
+    public boolean branch(String field) {
+        return franchise(BRANCHES) && (branch == null || branch.contains(field));
+    }
+
+    public boolean product(String field) {
+        return branch(PRODUCTS) && (product == null || product.contains(field));
+    }
+
+    public boolean includesProducts() {
+        return branch(PRODUCTS);
+    }
+
+    /**
+     * Stored paths to include when reading franchises for this selection; {@code _id} is always returned
+     * and {@code version} is added for the entity tag.
+     */
+    public List<String> projection() {
+        List<String> paths = new ArrayList<>();
+        paths.add("version");
+        if (franchise("name")) {
+            paths.add("name");
+        }
+        if (franchise("active")) {
+            paths.add("active");
+        }
+        // Branch ids are also needed to attach products kept in the products collection.
+        if (branch("id") || includesProducts()) {
+            paths.add(BRANCHES + "._id");
+        }
+        if (branch("name")) {
+            paths.add(BRANCHES + ".name");
+        }
+        if (branch("active")) {
+            paths.add(BRANCHES + ".active");
+        }
+        if (product == null && includesProducts()) {
+            paths.add(BRANCHES + "." + PRODUCTS);
+        } else if (includesProducts()) {
+            // Product ids also key the stock still waiting in the write-behind buffer.
+            paths.add(BRANCHES + "." + PRODUCTS + "._id");
+            for (String field : List.of("name", "stock")) {
+                if (product(field)) {
+                    paths.add(BRANCHES + "." + PRODUCTS + "." + field);
+                }
+            }
+        }
+        return paths;
+    }
+
+    private static Set<String> without(Set<String> selected, Set<String> universe, String field) {
+        Set<String> limited = new HashSet<>(selected == null ? universe : selected);
+        limited.remove(field);
+        return limited;
+    }
+}
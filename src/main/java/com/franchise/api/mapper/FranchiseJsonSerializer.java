@@ -0,0 +1,104 @@
+package com.franchise.api.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes a {@link Franchise} straight to the generator in the shape of
+ * {@link com.franchise.api.dto.FranchiseResponse}, without building the response records. The output is
+ * byte-identical to serializing {@link FranchiseMapper#toResponse(Franchise)} with the default property
+ * naming and inclusion; keep both in step when the response shape changes. A {@link FranchiseFields}
+ * writer attribute (see {@link #FIELDS}) limits the output to a sparse fieldset.
+ */
+public class FranchiseJsonSerializer extends StdSerializer<Franchise> {
+
+    public static final Object FIELDS = FranchiseFields.class;
+
+    public FranchiseJsonSerializer() {
+        super(Franchise.class);
+    }
+
+    /**
+     * Registers the serializer for {@link Franchise}; only meant for writers that emit response JSON.
+     */
+    public static SimpleModule module() {
+        return new SimpleModule("franchise-response").addSerializer(Franchise.class, new FranchiseJsonSerializer());
+    }
+
+    @Override
+    public void serialize(Franchise franchise, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        Object attribute = provider == null ? null : provider.getAttribute(FIELDS);
+        FranchiseFields fields = attribute instanceof FranchiseFields selected ? selected : FranchiseFields.ALL;
+        generator.writeStartObject();
+        if (fields.franchise("id")) {
+            generator.writeStringField("id", franchise.getId());
+        }
+        if (fields.franchise("name")) {
+            generator.writeStringField("name", franchise.getName());
+        }
+        if (fields.franchise("active")) {
+            generator.writeBooleanField("active", franchise.getActive() == null || Boolean.TRUE.equals(franchise.getActive()));
+        }
+        if (fields.franchise("branches")) {
+            generator.writeArrayFieldStart("branches");
+            List<Branch> branches = franchise.getBranches();
+            if (branches != null) {
+                for (Branch branch : branches) {
+                    if (branch != null) {
+                        writeBranch(branch, generator, fields);
+                    }
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeBranch(Branch branch, JsonGenerator generator, FranchiseFields fields) throws IOException {
+        generator.writeStartObject();
+        if (fields.branch("id")) {
+            generator.writeStringField("id", branch.getId());
+        }
+        if (fields.branch("name")) {
+            generator.writeStringField("name", branch.getName());
+        }
+        if (fields.branch("active")) {
+            generator.writeBooleanField("active", branch.isActive());
+        }
+        if (fields.branch("products")) {
+            generator.writeArrayFieldStart("products");
+            List<Product> products = branch.getProducts();
+            if (products != null) {
+                for (Product product : products) {
+                    if (product != null) {
+                        writeProduct(product, generator, fields);
+                    }
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeProduct(Product product, JsonGenerator generator, FranchiseFields fields) throws IOException {
+        generator.writeStartObject();
+        if (fields.product("id")) {
+            generator.writeStringField("id", product.getId());
+        }
+        if (fields.product("name")) {
+            generator.writeStringField("name", product.getName());
+        }
+        if (fields.product("stock")) {
+            generator.writeNumberField("stock", product.getStock());
+        }
+        generator.writeEndObject();
+    }
+}
@@ -1,16 +1,17 @@
 package com.franchise.api.mapper;
 
 import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.BranchStockSummary;
 import com.franchise.api.domain.Franchise;
 import com.franchise.api.domain.Product;
 import com.franchise.api.dto.BranchResponse;
 import com.franchise.api.dto.FranchiseResponse;
 import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.TopProductPerBranchResponse;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 public final class FranchiseMapper {
 
@@ -48,23 +49,47 @@ public final class FranchiseMapper {
         return new ProductResponse(product.getId(), product.getName(), product.getStock());
     }
 
+    /**
+     * Top product of every active branch, read from the maintained stock summaries only.
+     */
+    public static List<TopProductPerBranchResponse> toTopProductResponses(List<Branch> branches) {
+        if (branches == null) {
+            return Collections.emptyList();
+        }
+        List<TopProductPerBranchResponse> results = new ArrayList<>();
+        for (Branch branch : branches) {
+            BranchStockSummary summary = branch.getStockSummary();
+            if (branch.isActive() && summary != null && summary.getTopProduct() != null) {
+                results.add(new TopProductPerBranchResponse(branch.getId(), branch.getName(), toProductResponse(summary.getTopProduct())));
+            }
+        }
+        return results;
+    }
+
+    // Plain loops into presized lists: on large franchises the stream pipelines per branch were mostly garbage.
     private static List<BranchResponse> toBranchResponses(List<Branch> branches) {
         if (branches == null) {
             return Collections.emptyList();
         }
-        return branches.stream()
-                .filter(Objects::nonNull)
-                .map(FranchiseMapper::toBranchResponse)
-                .collect(Collectors.toList());
+        List<BranchResponse> responses = new ArrayList<>(branches.size());
+        for (Branch branch : branches) {
+            if (branch != null) {
+                responses.add(toBranchResponse(branch));
+            }
+        }
+        return responses;
     }
 
     private static List<ProductResponse> toProductResponses(List<Product> products) {
         if (products == null) {
             return Collections.emptyList();
         }
-        return products.stream()
-                .filter(Objects::nonNull)
-                .map(FranchiseMapper::toProductResponse)
-                .collect(Collectors.toList());
+        List<ProductResponse> responses = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product != null) {
+                responses.add(toProductResponse(product));
+            }
+        }
+        return responses;
     }
 }
@@ -0,0 +1,120 @@
+package com.franchise.api.mapper;
+
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.exception.BadRequestException;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse fieldset over {@link TopProductPerBranchResponse}: {@code fields} takes {@code branchId},
+ * {@code branchName}, {@code product} or {@code product.id|name|stock}; {@code depth=0} drops the product.
+ */
+public final class TopProductFields {
+
+    public static final TopProductFields ALL = new TopProductFields(null, null);
+
+    private static final String PRODUCT = "product";
+    private static final Set<String> ROW_FIELDS = Set.of("branchId", "branchName", PRODUCT);
+    private static final Set<String> PRODUCT_FIELDS = Set.of("id", "name", "stock");
+
+    // null means every field of that level
+    private final Set<String> row;
+    private final Set<String> product;
+
+    private TopProductFields(Set<String> row, Set<String> product) {
+        this.row = row;
+        this.product = product;
+    }
+
+    public static TopProductFields parse(String fields, Integer depth) {
+        if (depth != null && (depth < 0 || depth > 1)) {
+            throw new BadRequestException("Depth must be between 0 and 1");
+        }
+        if (!StringUtils.hasText(fields) && (depth == null || depth == 1)) {
+            return ALL;
+        }
+        Set<String> row = null;
+        Set<String> product = null;
+        if (StringUtils.hasText(fields)) {
+            row = new HashSet<>();
+            product = new HashSet<>();
+            boolean allProduct = false;
+            for (String raw : fields.split(",")) {
+                String path = raw.trim();
+                if (path.isEmpty()) {
+                    continue;
+                }
+                String[] segments = path.split("\\.", -1);
+                if (segments.length == 1 && ROW_FIELDS.contains(segments[0])) {
+                    row.add(segments[0]);
+                    allProduct |= PRODUCT.equals(segments[0]);
+                } else if (segments.length == 2 && PRODUCT.equals(segments[0]) && PRODUCT_FIELDS.contains(segments[1])) {
+                    row.add(PRODUCT);
+                    product.add(segments[1]);
+                } else {
+                    throw new BadRequestException("Unknown field '%s'".formatted(path));
+                }
+            }
+            product = allProduct ? null : product;
+        }
+        if (depth != null && depth < 1) {
+            row = new HashSet<>(row == null ? ROW_FIELDS : row);
+            row.remove(PRODUCT);
+        }
+        return new TopProductFields(row, product);
+    }
+
+    public boolean isAll() {
+        return row == null && product == null;
+    }
+
+    public List<Map<String, Object>> apply(List<TopProductPerBranchResponse> topProducts) {
+        List<Map<String, Object>> rows = new ArrayList<>(topProducts.size());
+        for (TopProductPerBranchResponse topProduct : topProducts) {
+            Map<String, Object> selected = new LinkedHashMap<>();
+            if (row("branchId")) {
+                selected.put("branchId", topProduct.branchId());
+            }
+            if (row("branchName")) {
+                selected.put("branchName", topProduct.branchName());
+            }
+            if (row(PRODUCT)) {
+                selected.put(PRODUCT, apply(topProduct.product()));
+            }
+            rows.add(selected);
+        }
+        return rows;
+    }
+
+    private Map<String, Object> apply(ProductResponse topProduct) {
+        if (topProduct == null) {
+            return null;
+        }
+        Map<String, Object> selected = new LinkedHashMap<>();
+        if (product("id")) {
+            selected.put("id", topProduct.id());
+        }
+        if (product("name")) {
+            selected.put("name", topProduct.name());
+        }
+        if (product("stock")) {
+            selected.put("stock", topProduct.stock());
+        }
+        return selected;
+    }
+
+    private boolean row(String field) {
+        return row == null || row.contains(field);
+    }
+
+    private boolean product(String field) {
+        return product == null || product.contains(field);
+    }
+}
@@ -0,0 +1,342 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.BranchProduct;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.ProductSearchResult;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Products kept in the {@code products} collection keyed by franchise and branch, so franchise documents
+ * only carry the branch structure. Case-insensitive name uniqueness per branch is enforced by an index.
+ * Every product write bumps the owning franchise's {@code version} afterwards, so the franchise version
+ * (and the ETag derived from it) still changes whenever any part of the aggregate does.
+ */
+@RequiredArgsConstructor
+public class CollectionProductStore implements ProductStore {
+
+    private static final String ID = "id";
+    private static final String FRANCHISE_ID = "franchiseId";
+    private static final String BRANCH_ID = "branchId";
+    private static final String NAME = "name";
+    private static final String STOCK = "stock";
+    private static final String VERSION = "version";
+    private static final String STOCK_WRITE = "stockWrite";
+
+    private final FranchiseRepository franchiseRepository;
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void loadProducts(Collection<Franchise> franchises) {
+        List<String> franchiseIds = franchises.stream().map(Franchise::getId).filter(Objects::nonNull).toList();
+        if (franchiseIds.isEmpty()) {
+            return;
+        }
+        Query query = Query.query(Criteria.where(FRANCHISE_ID).in(franchiseIds))
+                .with(Sort.by(Sort.Direction.ASC, NAME))
+                .collation(MongoCollations.caseInsensitive());
+        Map<String, List<Product>> productsByBranch = new HashMap<>();
+        for (BranchProduct product : mongoTemplate.find(query, BranchProduct.class)) {
+            productsByBranch.computeIfAbsent(branchKey(product.getFranchiseId(), product.getBranchId()), key -> new ArrayList<>())
+                    .add(toProduct(product));
+        }
+        for (Franchise franchise : franchises) {
+            if (franchise.getBranches() == null) {
+                continue;
+            }
+            for (Branch branch : franchise.getBranches()) {
+                branch.setProducts(productsByBranch.getOrDefault(branchKey(franchise.getId(), branch.getId()), new ArrayList<>()));
+            }
+        }
+    }
+
+    @Override
+    public Optional<Product> findProduct(Franchise franchise, Branch branch, String productId) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                        Query.query(productCriteria(franchise.getId(), branch.getId(), productId)), BranchProduct.class))
+                .map(this::toProduct);
+    }
+
+    @Override
+    public void addProduct(Franchise franchise, Branch branch, Product product) {
+        mongoTemplate.insert(BranchProduct.builder()
+                .id(product.getId())
+                .franchiseId(franchise.getId())
+                .branchId(branch.getId())
+                .name(product.getName())
+                .stock(product.getStock())
+                .build());
+        touchFranchise(franchise.getId());
+    }
+
+    @Override
+    public void renameProduct(Franchise franchise, Branch branch, Product product, String name) {
+        Criteria unchanged = unchangedProduct(franchise.getId(), branch.getId(), product.getId(), franchise.getVersion())
+                .orElseThrow(() -> modified(franchise.getId()));
+        if (mongoTemplate.updateFirst(Query.query(unchanged), Update.update(NAME, name).inc(VERSION, 1L), BranchProduct.class)
+                .getMatchedCount() == 0) {
+            throw modified(franchise.getId());
+        }
+        product.setName(name);
+        touchFranchise(franchise.getId());
+    }
+
+    @Override
+    public boolean removeProduct(Franchise franchise, Branch branch, String productId) {
+        Optional<Criteria> unchanged = unchangedProduct(franchise.getId(), branch.getId(), productId, franchise.getVersion());
+        if (unchanged.isEmpty()) {
+            return false;
+        }
+        if (mongoTemplate.remove(Query.query(unchanged.get()), BranchProduct.class).getDeletedCount() == 0) {
+            throw modified(franchise.getId());
+        }
+        touchFranchise(franchise.getId());
+        return true;
+    }
+
+    @Override
+    public void removeBranchProducts(String franchiseId, String branchId) {
+        mongoTemplate.remove(Query.query(Criteria.where(FRANCHISE_ID).is(franchiseId).and(BRANCH_ID).is(branchId)), BranchProduct.class);
+    }
+
+    @Override
+    public void removeFranchiseProducts(String franchiseId) {
+        mongoTemplate.remove(Query.query(Criteria.where(FRANCHISE_ID).is(franchiseId)), BranchProduct.class);
+    }
+
+    @Override
+    public Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock) {
+        return modifyStock(franchiseId, productCriteria(franchiseId, branchId, productId), new Update().set(STOCK, stock));
+    }
+
+    @Override
+    public Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock, long expectedVersion) {
+        Optional<Criteria> unchanged = unchangedProduct(franchiseId, branchId, productId, expectedVersion);
+        if (unchanged.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(modifyStock(franchiseId, unchanged.get(), new Update().set(STOCK, stock))
+                .orElseThrow(() -> modified(franchiseId)));
+    }
+
+    @Override
+    public Optional<Product> adjustStock(String franchiseId, String branchId, String productId, int delta) {
+        return modifyStock(franchiseId, stockRange(productCriteria(franchiseId, branchId, productId), delta), new Update().inc(STOCK, delta));
+    }
+
+    @Override
+    public List<Franchise> findStockSnapshots(Collection<String> franchiseIds) {
+        List<Franchise> snapshots = franchiseRepository.findStockSnapshots(franchiseIds);
+        loadProducts(snapshots);
+        return snapshots;
+    }
+
+    @Override
+    public Optional<Product> findProductStock(String franchiseId, String branchId, String productId) {
+        return Optional.ofNullable(mongoTemplate.findOne(
+                        Query.query(productCriteria(franchiseId, branchId, productId)), BranchProduct.class))
+                .map(this::toProduct);
+    }
+
+    /**
+     * One unordered bulk write with a guarded update per product, then one {@code $in} read of their stock. A bulk
+     * result only counts matches, so each update also stamps the product with its own {@code stockWrite} id and
+     * the read tells which ones landed. When every update matched no stamp is needed; otherwise a stamp
+     * overwritten by a concurrent write before the read reports that write as rejected.
+     */
+    @Override
+    public List<StockWriteResult> applyStockWrites(String franchiseId, List<StockWrite> writes) {
+        if (writes.isEmpty()) {
+            return List.of();
+        }
+        List<String> writeIds = writes.stream().map(write -> new ObjectId().toHexString()).toList();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BranchProduct.class);
+        for (int index = 0; index < writes.size(); index++) {
+            StockWrite write = writes.get(index);
+            Criteria criteria = productCriteria(franchiseId, write.branchId(), write.productId());
+            Update update = write.relative() ? new Update().inc(STOCK, write.value()) : new Update().set(STOCK, write.value());
+            bulk.updateOne(Query.query(write.relative() ? stockRange(criteria, write.value()) : criteria), update.set(STOCK_WRITE, writeIds.get(index)).inc(VERSION, 1L));
+        }
+        int matched = bulk.execute().getMatchedCount();
+        if (matched > 0) {
+            touchFranchise(franchiseId);
+        }
+
+        // Raw documents, since stockWrite is not part of BranchProduct.
+        Document filter = new Document("_id", new Document("$in", writes.stream().map(StockWrite::productId).toList()))
+                .append(FRANCHISE_ID, franchiseId);
+        Document projection = new Document(BRANCH_ID, 1).append(STOCK, 1).append(STOCK_WRITE, 1);
+        Map<String, Document> stored = new HashMap<>();
+        mongoTemplate.execute(BranchProduct.class, collection -> collection.find(filter).projection(projection)
+                .into(new ArrayList<>()))
+                .forEach(product -> stored.put(product.get(BRANCH_ID) + "/" + product.get("_id"), product));
+        List<StockWriteResult> results = new ArrayList<>(writes.size());
+        for (int index = 0; index < writes.size(); index++) {
+            StockWrite write = writes.get(index);
+            Document product = stored.get(write.branchId() + "/" + write.productId());
+            Integer stock = product == null ? null : ((Number) product.get(STOCK)).intValue();
+            boolean applied = product != null && (matched == writes.size() || writeIds.get(index).equals(product.get(STOCK_WRITE)));
+            results.add(applied ? StockWriteResult.applied(stock) : StockWriteResult.rejected(stock));
+        }
+        return results;
+    }
+
+    @Override
+    public List<FranchiseSummaryResponse> withProductCounts(List<FranchiseSummaryResponse> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        List<String> franchiseIds = summaries.stream().map(FranchiseSummaryResponse::id).toList();
+        Map<String, Integer> counts = new HashMap<>();
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where(FRANCHISE_ID).in(franchiseIds)),
+                        Aggregation.group(FRANCHISE_ID).count().as("count")), BranchProduct.class, Document.class)
+                .forEach(result -> counts.put(result.getString("_id"), result.getInteger("count")));
+        return summaries.stream()
+                .map(summary -> new FranchiseSummaryResponse(summary.id(), summary.name(), summary.active(),
+                        summary.branchCount(), counts.getOrDefault(summary.id(), 0)))
+                .toList();
+    }
+
+    /**
+     * Sorting on the (franchiseId, branchId, stock, name) index lets $group keep the first document per branch.
+     */
+    @Override
+    public List<TopProductPerBranchResponse> findTopProductPerBranch(String franchiseId) {
+        Optional<Franchise> franchise = franchiseRepository.findById(franchiseId)
+                .filter(candidate -> !Boolean.FALSE.equals(candidate.getActive()));
+        if (franchise.isEmpty() || franchise.get().getBranches() == null) {
+            return List.of();
+        }
+        Map<String, BranchProduct> winners = new HashMap<>();
+        mongoTemplate.aggregate(Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where(FRANCHISE_ID).is(franchiseId)),
+                        Aggregation.sort(Sort.by(Sort.Order.asc(BRANCH_ID), Sort.Order.desc(STOCK), Sort.Order.asc(NAME))),
+                        context -> new Document("$group", new Document("_id", "$" + BRANCH_ID)
+                                .append("product", new Document("$first", "$$ROOT")))),
+                        BranchProduct.class, Document.class)
+                .forEach(result -> winners.put(result.getString("_id"),
+                        mongoTemplate.getConverter().read(BranchProduct.class, result.get("product", Document.class))));
+        List<TopProductPerBranchResponse> results = new ArrayList<>();
+        for (Branch branch : franchise.get().getBranches()) {
+            BranchProduct winner = winners.get(branch.getId());
+            if (branch.isActive() && winner != null) {
+                results.add(new TopProductPerBranchResponse(branch.getId(), branch.getName(),
+                        new ProductResponse(winner.getId(), winner.getName(), winner.getStock())));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Walks the collated (name, id) index from the prefix, then reads the names of the franchises and
+     * branches on the page in one projected query.
+     */
+    @Override
+    public List<ProductSearchResult> searchProducts(String prefix, String afterName, String afterProductId, int limit) {
+        Criteria criteria = Criteria.where(NAME).gte(prefix).lt(prefix + MongoCollations.PREFIX_END);
+        if (afterName != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where(NAME).gt(afterName),
+                    Criteria.where(NAME).is(afterName).and(ID).gt(afterProductId)));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Order.asc(NAME), Sort.Order.asc(ID)))
+                .limit(limit)
+                .collation(MongoCollations.caseInsensitive());
+        List<BranchProduct> products = mongoTemplate.find(query, BranchProduct.class);
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        Query owners = Query.query(Criteria.where(ID).in(products.stream().map(BranchProduct::getFranchiseId).distinct().toList()));
+        owners.fields().include(NAME, "branches._id", "branches.name");
+        Map<String, Franchise> franchises = new HashMap<>();
+        mongoTemplate.find(owners, Franchise.class).forEach(franchise -> franchises.put(franchise.getId(), franchise));
+        return products.stream()
+                .map(product -> {
+                    Franchise franchise = franchises.get(product.getFranchiseId());
+                    String branchName = franchise == null ? null : franchise.findBranch(product.getBranchId())
+                            .map(Branch::getName)
+                            .orElse(null);
+                    return new ProductSearchResult(product.getFranchiseId(), franchise == null ? null : franchise.getName(),
+                            product.getBranchId(), branchName, product.getId(), product.getName(), product.getStock());
+                })
+                .toList();
+    }
+
+    private Optional<Product> modifyStock(String franchiseId, Criteria criteria, Update update) {
+        Optional<Product> product = Optional.ofNullable(mongoTemplate.findAndModify(Query.query(criteria), update.inc(VERSION, 1L),
+                        FindAndModifyOptions.options().returnNew(true), BranchProduct.class))
+                .map(this::toProduct);
+        product.ifPresent(ignored -> touchFranchise(franchiseId));
+        return product;
+    }
+
+    /**
+     * The product as it is now, provided its franchise is still at {@code franchiseVersion}; the returned criteria
+     * only match while the product keeps the version just read. Product writes bump the franchise after the
+     * product, so one that has not reached the franchise yet goes unnoticed; anything later makes the write miss.
+     */
+    private Optional<Criteria> unchangedProduct(String franchiseId, String branchId, String productId, Long franchiseVersion) {
+        BranchProduct current = mongoTemplate.findOne(Query.query(productCriteria(franchiseId, branchId, productId)), BranchProduct.class);
+        if (current == null) {
+            return Optional.empty();
+        }
+        long expected = franchiseVersion == null ? 0L : franchiseVersion;
+        if (franchiseRepository.findVersionById(franchiseId).filter(version -> version == expected).isEmpty()) {
+            throw modified(franchiseId);
+        }
+        return Optional.of(productCriteria(franchiseId, branchId, productId).and(VERSION).is(current.getVersion()));
+    }
+
+    private OptimisticLockingFailureException modified(String franchiseId) {
+        return new OptimisticLockingFailureException("Product of franchise '%s' was modified concurrently".formatted(franchiseId));
+    }
+
+    private void touchFranchise(String franchiseId) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(ID).is(franchiseId)), new Update().inc(VERSION, 1L), Franchise.class);
+    }
+
+    private Criteria stockRange(Criteria criteria, int delta) {
+        return delta < 0 ? criteria.and(STOCK).gte(-(long) delta) : criteria.and(STOCK).lte(Integer.MAX_VALUE - delta);
+    }
+
+    private Criteria productCriteria(String franchiseId, String branchId, String productId) {
+        return Criteria.where(ID).is(productId).and(FRANCHISE_ID).is(franchiseId).and(BRANCH_ID).is(branchId);
+    }
+
+    private Product toProduct(BranchProduct product) {
+        return Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .stock(product.getStock())
+                .build();
+    }
+
+    private static String branchKey(String franchiseId, String branchId) {
+        return franchiseId + "/" + branchId;
+    }
+}
@@ -0,0 +1,119 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.ProductSearchResult;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.exception.ConflictException;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Products embedded in {@code branches.products} of the franchise document.
+ */
+@RequiredArgsConstructor
+public class EmbeddedProductStore implements ProductStore {
+
+    private final FranchiseRepository franchiseRepository;
+
+    @Override
+    public void loadProducts(Collection<Franchise> franchises) {
+    }
+
+    @Override
+    public Optional<Product> findProduct(Franchise franchise, Branch branch, String productId) {
+        return branch.findProduct(productId);
+    }
+
+    @Override
+    public void addProduct(Franchise franchise, Branch branch, Product product) {
+        if (branch.findProductByName(product.getName()).isPresent()) {
+            throw duplicateName(product.getName());
+        }
+        branch.addProduct(product);
+        franchiseRepository.save(franchise);
+    }
+
+    @Override
+    public void renameProduct(Franchise franchise, Branch branch, Product product, String name) {
+        boolean duplicate = branch.findProductByName(name)
+                .filter(other -> !other.getId().equals(product.getId()))
+                .isPresent();
+        if (duplicate) {
+            throw duplicateName(name);
+        }
+        branch.renameProduct(product, name);
+        franchiseRepository.save(franchise);
+    }
+
+    @Override
+    public boolean removeProduct(Franchise franchise, Branch branch, String productId) {
+        if (!branch.removeProduct(productId)) {
+            return false;
+        }
+        franchiseRepository.save(franchise);
+        return true;
+    }
+
+    @Override
+    public void removeBranchProducts(String franchiseId, String branchId) {
+    }
+
+    @Override
+    public void removeFranchiseProducts(String franchiseId) {
+    }
+
+    @Override
+    public Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock) {
+        return franchiseRepository.updateProductStock(franchiseId, branchId, productId, stock);
+    }
+
+    @Override
+    public Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock, long expectedVersion) {
+        return franchiseRepository.updateProductStock(franchiseId, branchId, productId, stock, expectedVersion);
+    }
+
+    @Override
+    public Optional<Product> adjustStock(String franchiseId, String branchId, String productId, int delta) {
+        return franchiseRepository.adjustProductStock(franchiseId, branchId, productId, delta);
+    }
+
+    @Override
+    public List<Franchise> findStockSnapshots(Collection<String> franchiseIds) {
+        return franchiseRepository.findStockSnapshots(franchiseIds);
+    }
+
+    @Override
+    public Optional<Product> findProductStock(String franchiseId, String branchId, String productId) {
+        return franchiseRepository.findProductStock(franchiseId, branchId, productId);
+    }
+
+    @Override
+    public List<StockWriteResult> applyStockWrites(String franchiseId, List<StockWrite> writes) {
+        return franchiseRepository.applyStockWrites(franchiseId, writes);
+    }
+
+    @Override
+    public List<FranchiseSummaryResponse> withProductCounts(List<FranchiseSummaryResponse> summaries) {
+        return summaries;
+    }
+
+    @Override
+    public List<TopProductPerBranchResponse> findTopProductPerBranch(String franchiseId) {
+        return franchiseRepository.findTopProductPerBranch(franchiseId);
+    }
+
+    @Override
+    public List<ProductSearchResult> searchProducts(String prefix, String afterName, String afterProductId, int limit) {
+        return franchiseRepository.searchProducts(prefix, afterName, afterProductId, limit);
+    }
+
+    private ConflictException duplicateName(String name) {
+        return new ConflictException("Product with name '%s' already exists in branch".formatted(name));
+    }
+}
@@ -1,11 +1,19 @@
 package com.franchise.api.repository;
 
 import com.franchise.api.domain.Franchise;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface FranchiseRepository extends MongoRepository<Franchise, String> {
+public interface FranchiseRepository extends MongoRepository<Franchise, String>, FranchiseRepositoryCustom {
 
+    @Query(value = "{ 'name' : ?0 }", collation = MongoCollations.CASE_INSENSITIVE)
     Optional<Franchise> findByNameIgnoreCase(String name);
+
+    List<Franchise> findAllByOrderByIdAsc(Limit limit);
+
+    List<Franchise> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -0,0 +1,49 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.ProductSearchResult;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface FranchiseRepositoryCustom {
+
+    Optional<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock);
+
+    Optional<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock, long expectedVersion);
+
+    Optional<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta);
+
+    List<Franchise> findStockSnapshots(Collection<String> franchiseIds);
+
+    Optional<Product> findProductStock(String franchiseId, String branchId, String productId);
+
+    List<StockWriteResult> applyStockWrites(String franchiseId, List<StockWrite> writes);
+
+    long backfillStockSummaries();
+
+    Optional<Long> findVersionById(String franchiseId);
+
+    List<Franchise> findVersions();
+
+    Optional<Franchise> findByIdIncluding(String franchiseId, Collection<String> fields);
+
+    List<Franchise> findAllIncluding(Collection<String> fields);
+
+    List<Franchise> findByNames(Collection<String> names);
+
+    List<FranchiseSummaryResponse> findSummaries(String afterId, Integer limit);
+
+    Optional<FranchiseSummaryResponse> findSummaryById(String franchiseId);
+
+    Stream<Franchise> streamFranchises(Boolean active);
+
+    List<TopProductPerBranchResponse> findTopProductPerBranch(String franchiseId);
+
+    List<ProductSearchResult> searchProducts(String prefix, String afterName, String afterProductId, int limit);
+}
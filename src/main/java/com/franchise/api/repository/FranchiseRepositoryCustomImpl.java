@@ -0,0 +1,460 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.ProductSearchResult;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.mapper.FranchiseMapper;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Targeted updates on the nested branch/product arrays. Embedded {@code id} properties are
+ * persisted as {@code _id}, so the raw field names below refer to that mapping. Every write bumps
+ * {@code version} so that concurrent whole-document saves detect the change, and stock writes keep
+ * the branch {@link com.franchise.api.domain.BranchStockSummary} in step.
+ */
+@RequiredArgsConstructor
+public class FranchiseRepositoryCustomImpl implements FranchiseRepositoryCustom {
+
+    private static final String ID = "_id";
+    private static final String BRANCHES = "branches";
+    private static final String PRODUCTS = "products";
+    private static final String STOCK = "stock";
+    private static final String STOCK_SUMMARY = "stockSummary";
+    private static final String TOP_PRODUCT = "topProduct";
+    private static final String PRODUCT_RESULT = "product";
+    private static final String VERSION = "version";
+    private static final String STOCK_WRITE = "stockWrite";
+    private static final int STREAM_BATCH_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock) {
+        return modifyProductStock(stockFilter(franchiseId, branchId, productId, null),
+                stockUpdate(branchId, productId, new Document("$literal", stock)), branchId, productId);
+    }
+
+    /**
+     * Same update with the franchise version in the filter. A miss on an existing product means the version
+     * moved on, and is reported as an {@link OptimisticLockingFailureException}.
+     */
+    @Override
+    public Optional<Product> updateProductStock(String franchiseId, String branchId, String productId, int stock, long expectedVersion) {
+        Bson version = expectedVersion == 0 ? Filters.in(VERSION, Arrays.asList(0L, null)) : Filters.eq(VERSION, expectedVersion);
+        Optional<Product> product = modifyProductStock(Filters.and(stockFilter(franchiseId, branchId, productId, null), version),
+                stockUpdate(branchId, productId, new Document("$literal", stock)), branchId, productId);
+        if (product.isEmpty() && findProductStock(franchiseId, branchId, productId).isPresent()) {
+            throw new OptimisticLockingFailureException("Franchise '%s' is no longer at version %d".formatted(franchiseId, expectedVersion));
+        }
+        return product;
+    }
+
+    @Override
+    public Optional<Product> adjustProductStock(String franchiseId, String branchId, String productId, int delta) {
+        // The range guard lives in the filter, so a decrement below zero (or past Integer.MAX_VALUE) simply matches nothing.
+        return modifyProductStock(stockFilter(franchiseId, branchId, productId, delta),
+                stockUpdate(branchId, productId, new Document("$add", List.of("$$old." + STOCK, delta))), branchId, productId);
+    }
+
+    @Override
+    public List<Franchise> findStockSnapshots(Collection<String> franchiseIds) {
+        Query query = Query.query(Criteria.where("id").in(franchiseIds));
+        query.fields().include(BRANCHES + "." + ID, BRANCHES + "." + PRODUCTS + "." + ID, BRANCHES + "." + PRODUCTS + ".name",
+                BRANCHES + "." + PRODUCTS + "." + STOCK);
+        return mongoTemplate.find(query, Franchise.class);
+    }
+
+    @Override
+    public Optional<Product> findProductStock(String franchiseId, String branchId, String productId) {
+        Bson filter = stockFilter(franchiseId, branchId, productId, null);
+        Document result = mongoTemplate.execute(Franchise.class, collection -> collection.find(filter)
+                .projection(productProjection(branchId, productId))
+                .first());
+        return readProduct(result);
+    }
+
+    /**
+     * One unordered bulk write with a guarded update per product, then one read of the franchise's stock. A bulk
+     * result only counts matches, so each update also stamps the product with its own {@code stockWrite} id and
+     * the read tells which ones landed. When every update matched no stamp is needed; otherwise a stamp
+     * overwritten by a concurrent write before the read reports that write as rejected.
+     */
+    @Override
+    public List<StockWriteResult> applyStockWrites(String franchiseId, List<StockWrite> writes) {
+        if (writes.isEmpty()) {
+            return List.of();
+        }
+        List<String> writeIds = writes.stream().map(write -> new ObjectId().toHexString()).toList();
+        List<UpdateOneModel<Document>> models = new ArrayList<>(writes.size());
+        for (int index = 0; index < writes.size(); index++) {
+            StockWrite write = writes.get(index);
+            models.add(new UpdateOneModel<>(
+                    stockFilter(franchiseId, write.branchId(), write.productId(), write.relative() ? write.value() : null),
+                    stockUpdate(write.branchId(), write.productId(), write.relative()
+                            ? new Document("$add", List.of("$$old." + STOCK, write.value()))
+                            : new Document("$literal", write.value()), writeIds.get(index))));
+        }
+        int matched = mongoTemplate.execute(Franchise.class, collection -> collection.bulkWrite(models, new BulkWriteOptions().ordered(false)))
+                .getMatchedCount();
+
+        Map<String, Document> stored = new HashMap<>();
+        Document franchise = mongoTemplate.execute(Franchise.class, collection -> collection.find(Filters.eq(ID, toFranchiseId(franchiseId)))
+                .projection(new Document(BRANCHES + "." + ID, 1)
+                        .append(BRANCHES + "." + PRODUCTS + "." + ID, 1)
+                        .append(BRANCHES + "." + PRODUCTS + "." + STOCK, 1)
+                        .append(BRANCHES + "." + PRODUCTS + "." + STOCK_WRITE, 1))
+                .first());
+        if (franchise != null) {
+            for (Document branch : franchise.getList(BRANCHES, Document.class, List.of())) {
+                for (Document product : branch.getList(PRODUCTS, Document.class, List.of())) {
+                    stored.put(branch.get(ID) + "/" + product.get(ID), product);
+                }
+            }
+        }
+        List<StockWriteResult> results = new ArrayList<>(writes.size());
+        for (int index = 0; index < writes.size(); index++) {
+            StockWrite write = writes.get(index);
+            Document product = stored.get(write.branchId() + "/" + write.productId());
+            Integer stock = product == null ? null : ((Number) product.get(STOCK)).intValue();
+            boolean applied = product != null && (matched == writes.size() || writeIds.get(index).equals(product.get(STOCK_WRITE)));
+            results.add(applied ? StockWriteResult.applied(stock) : StockWriteResult.rejected(stock));
+        }
+        return results;
+    }
+
+    @Override
+    public long backfillStockSummaries() {
+        Document missing = new Document("$eq", Arrays.asList(new Document("$ifNull", Arrays.asList("$$b." + STOCK_SUMMARY, null)), null));
+        Document summarized = new Document("$mergeObjects", List.of("$$b", new Document(STOCK_SUMMARY,
+                let(new Document(PRODUCTS, new Document("$ifNull", List.of("$$b." + PRODUCTS, List.of()))), summaryOf("$$" + PRODUCTS)))));
+        Bson filter = Filters.elemMatch(BRANCHES, Filters.exists(STOCK_SUMMARY, false));
+        List<Bson> update = List.of(new Document("$set", new Document(BRANCHES, mapBranches(new Document("$cond", List.of(missing, summarized, "$$b"))))
+                .append(VERSION, nextVersion())));
+        return mongoTemplate.execute(Franchise.class, collection -> collection.updateMany(filter, update)).getModifiedCount();
+    }
+
+    @Override
+    public Optional<Long> findVersionById(String franchiseId) {
+        Query query = Query.query(Criteria.where("id").is(franchiseId));
+        query.fields().include(VERSION);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Franchise.class))
+                .map(franchise -> franchise.getVersion() == null ? 0L : franchise.getVersion());
+    }
+
+    /**
+     * Ids and versions only, ordered by id; enough to tell whether any franchise changed.
+     */
+    @Override
+    public List<Franchise> findVersions() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        query.fields().include(VERSION);
+        return mongoTemplate.find(query, Franchise.class);
+    }
+
+    @Override
+    public Optional<Franchise> findByIdIncluding(String franchiseId, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("id").is(franchiseId));
+        query.fields().include(fields.toArray(String[]::new));
+        return Optional.ofNullable(mongoTemplate.findOne(query, Franchise.class));
+    }
+
+    @Override
+    public List<Franchise> findAllIncluding(Collection<String> fields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id"));
+        query.fields().include(fields.toArray(String[]::new));
+        return mongoTemplate.find(query, Franchise.class);
+    }
+
+    /**
+     * Franchises whose name matches any of {@code names} under the same collation as the unique name index.
+     */
+    @Override
+    public List<Franchise> findByNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        Query query = Query.query(Criteria.where("name").in(names)).collation(MongoCollations.caseInsensitive());
+        return mongoTemplate.find(query, Franchise.class);
+    }
+
+    @Override
+    public List<FranchiseSummaryResponse> findSummaries(String afterId, Integer limit) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (afterId != null) {
+            stages.add(Aggregation.match(Criteria.where("id").gt(afterId)));
+        }
+        stages.add(Aggregation.sort(Sort.by(Sort.Direction.ASC, "id")));
+        if (limit != null) {
+            stages.add(Aggregation.limit(limit));
+        }
+        stages.add(summaryProjection());
+        return mongoTemplate.aggregate(Aggregation.newAggregation(Franchise.class, stages), FranchiseSummaryResponse.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public Optional<FranchiseSummaryResponse> findSummaryById(String franchiseId) {
+        List<FranchiseSummaryResponse> results = mongoTemplate.aggregate(Aggregation.newAggregation(Franchise.class,
+                        Aggregation.match(Criteria.where("id").is(franchiseId)),
+                        summaryProjection()), FranchiseSummaryResponse.class)
+                .getMappedResults();
+        return results.stream().findFirst();
+    }
+
+    @Override
+    public Stream<Franchise> streamFranchises(Boolean active) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(STREAM_BATCH_SIZE);
+        if (active != null) {
+            query.addCriteria(active ? Criteria.where("active").ne(false) : Criteria.where("active").is(false));
+        }
+        return mongoTemplate.stream(query, Franchise.class);
+    }
+
+    /**
+     * Reads only the branch stock summaries of an active franchise; product arrays are never fetched.
+     */
+    @Override
+    public List<TopProductPerBranchResponse> findTopProductPerBranch(String franchiseId) {
+        Query query = Query.query(Criteria.where("id").is(franchiseId).and("active").ne(false));
+        query.fields().include(BRANCHES + "." + ID, BRANCHES + ".name", BRANCHES + ".active", BRANCHES + "." + STOCK_SUMMARY + "." + TOP_PRODUCT);
+        Franchise franchise = mongoTemplate.findOne(query, Franchise.class);
+        return franchise == null ? List.of() : FranchiseMapper.toTopProductResponses(franchise.getBranches());
+    }
+
+    /**
+     * The first match selects, through the collated multikey index on product names, franchises carrying a
+     * product past the cursor; each branch is then narrowed to those products before they are unwound and sorted.
+     */
+    @Override
+    public List<ProductSearchResult> searchProducts(String prefix, String afterName, String afterProductId, int limit) {
+        String productPath = BRANCHES + "." + PRODUCTS;
+        String name = productPath + ".name";
+        String end = prefix + MongoCollations.PREFIX_END;
+        // The keyset bound is part of the index-backed $match, so later pages skip franchises already read.
+        Criteria window = Criteria.where("name").gte(prefix).lt(end);
+        List<Object> inWindow = new ArrayList<>(List.of(
+                new Document("$gte", List.of("$$p.name", new Document("$literal", prefix))),
+                new Document("$lt", List.of("$$p.name", new Document("$literal", end)))));
+        if (afterName != null) {
+            window = new Criteria().andOperator(window, new Criteria().orOperator(
+                    Criteria.where("name").gt(afterName),
+                    Criteria.where("name").is(afterName).and(ID).gt(afterProductId)));
+            inWindow.add(new Document("$or", List.of(
+                    new Document("$gt", List.of("$$p.name", new Document("$literal", afterName))),
+                    new Document("$and", List.of(
+                            new Document("$eq", List.of("$$p.name", new Document("$literal", afterName))),
+                            new Document("$gt", List.of("$$p." + ID, new Document("$literal", afterProductId))))))));
+        }
+        // Only products inside the window are unwound, instead of every product of every matching franchise.
+        Document matchingProducts = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$$b." + PRODUCTS, List.of())))
+                .append("as", "p")
+                .append("cond", new Document("$and", inWindow)));
+        Document branches = new Document("$filter", new Document("input", new Document("$map", new Document("input", "$" + BRANCHES)
+                        .append("as", "b")
+                        .append("in", new Document(ID, "$$b." + ID).append("name", "$$b.name").append(PRODUCTS, matchingProducts))))
+                .append("as", "b")
+                .append("cond", new Document("$gt", List.of(new Document("$size", "$$b." + PRODUCTS), 0))));
+        Document result = new Document(ID, 0)
+                .append("franchiseId", new Document("$toString", "$" + ID))
+                .append("franchiseName", "$name")
+                .append("branchId", "$" + BRANCHES + "." + ID)
+                .append("branchName", "$" + BRANCHES + ".name")
+                .append("productId", "$" + productPath + "." + ID)
+                .append("productName", "$" + name)
+                .append(STOCK, "$" + productPath + "." + STOCK);
+        // Untyped, so the raw _id paths are not mapped against the Product properties.
+        Aggregation aggregation = Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where(productPath).elemMatch(window)),
+                        stage("$project", new Document("name", 1).append(BRANCHES, branches)),
+                        Aggregation.unwind(BRANCHES),
+                        Aggregation.unwind(productPath),
+                        Aggregation.sort(Sort.by(Sort.Order.asc(name), Sort.Order.asc(productPath + "." + ID))),
+                        Aggregation.limit(limit),
+                        stage("$project", result))
+                .withOptions(AggregationOptions.builder()
+                        .collation(MongoCollations.caseInsensitive())
+                        .allowDiskUse(true)
+                        .build());
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Franchise.class), ProductSearchResult.class)
+                .getMappedResults();
+    }
+
+    private AggregationOperation stage(String operator, Object definition) {
+        return context -> new Document(operator, definition);
+    }
+
+    /**
+     * Counts are computed server side with $size, so product arrays never leave the database.
+     */
+    private AggregationOperation summaryProjection() {
+        Document branches = new Document("$ifNull", List.of("$" + BRANCHES, List.of()));
+        Document productsPerBranch = new Document("$map", new Document("input", branches)
+                .append("as", "b")
+                .append("in", new Document("$size", new Document("$ifNull", List.of("$$b." + PRODUCTS, List.of())))));
+        Document projection = new Document("name", 1)
+                .append("active", new Document("$ne", List.of("$active", false)))
+                .append("branchCount", new Document("$size", branches))
+                .append("productCount", new Document("$sum", productsPerBranch));
+        return stage("$project", projection);
+    }
+
+    private Bson stockFilter(String franchiseId, String branchId, String productId, Integer delta) {
+        Bson product = delta == null
+                ? Filters.eq(ID, productId)
+                : Filters.and(Filters.eq(ID, productId), delta < 0 ? Filters.gte(STOCK, -(long) delta) : Filters.lte(STOCK, Integer.MAX_VALUE - delta));
+        return Filters.and(
+                Filters.eq(ID, toFranchiseId(franchiseId)),
+                Filters.elemMatch(BRANCHES, Filters.and(
+                        Filters.eq(ID, branchId),
+                        Filters.elemMatch(PRODUCTS, product))));
+    }
+
+    private Optional<Product> modifyProductStock(Bson filter, List<Bson> update, String branchId, String productId) {
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+                .projection(productProjection(branchId, productId))
+                .returnDocument(ReturnDocument.AFTER);
+        Document result = mongoTemplate.execute(Franchise.class, collection -> collection.findOneAndUpdate(filter, update, options));
+        return readProduct(result);
+    }
+
+    private List<Bson> stockUpdate(String branchId, String productId, Document newStock) {
+        return stockUpdate(branchId, productId, newStock, null);
+    }
+
+    /**
+     * Pipeline update that sets the product stock and maintains the branch stock summary in the same write.
+     * {@code newStock} may refer to the previous product as {@code $$old}; the guards live in the filter. The
+     * summary is rescanned only when it is missing or the current top product loses stock. A {@code writeId}
+     * is stored on the product as {@code stockWrite}.
+     */
+    private List<Bson> stockUpdate(String branchId, String productId, Document newStock, String writeId) {
+        Document isProduct = new Document("$eq", List.of("$$p." + ID, new Document("$literal", productId)));
+        Document written = new Document(STOCK, "$$stock");
+        if (writeId != null) {
+            written.append(STOCK_WRITE, new Document("$literal", writeId));
+        }
+        Document products = new Document("$map", new Document("input", "$$b." + PRODUCTS)
+                .append("as", "p")
+                .append("in", new Document("$cond", List.of(isProduct,
+                        new Document("$mergeObjects", List.of("$$p", written)),
+                        "$$p"))));
+        Document isTop = new Document("$eq", List.of("$$summary." + TOP_PRODUCT + "." + ID, "$$old." + ID));
+        Document rescan = new Document("$or", List.of(
+                new Document("$eq", Arrays.asList(new Document("$ifNull", Arrays.asList("$$summary", null)), null)),
+                new Document("$and", List.of(isTop, new Document("$lt", List.of("$$stock", "$$old." + STOCK))))));
+        Document incremental = new Document("productCount", "$$summary.productCount")
+                .append("totalStock", new Document("$add", List.of("$$summary.totalStock",
+                        new Document("$subtract", List.of("$$stock", "$$old." + STOCK)))))
+                .append(TOP_PRODUCT, new Document("$cond", List.of(
+                        new Document("$or", List.of(isTop, outranks("$$stock", "$$old.name",
+                                "$$summary." + TOP_PRODUCT + "." + STOCK, "$$summary." + TOP_PRODUCT + ".name"))),
+                        new Document(ID, "$$old." + ID).append("name", "$$old.name").append(STOCK, "$$stock"),
+                        "$$summary." + TOP_PRODUCT)));
+        Document updatedBranch = let(new Document("old", firstMatch("$$b." + PRODUCTS, "p", productId)),
+                let(new Document("stock", newStock),
+                        let(new Document(PRODUCTS, products).append("summary", "$$b." + STOCK_SUMMARY),
+                                new Document("$mergeObjects", List.of("$$b", new Document(PRODUCTS, "$$" + PRODUCTS)
+                                        .append(STOCK_SUMMARY, new Document("$cond", List.of(rescan, summaryOf("$$" + PRODUCTS), incremental))))))));
+        Document isBranch = new Document("$eq", List.of("$$b." + ID, new Document("$literal", branchId)));
+        return List.of(new Document("$set", new Document(BRANCHES, mapBranches(new Document("$cond", List.of(isBranch, updatedBranch, "$$b"))))
+                .append(VERSION, nextVersion())));
+    }
+
+    /**
+     * Full summary of a products array expression, with the top product chosen as in {@link #outranks}.
+     */
+    private Document summaryOf(String products) {
+        Document top = new Document("$reduce", new Document("input", products)
+                .append("initialValue", null)
+                .append("in", new Document("$cond", List.of(
+                        new Document("$or", List.of(
+                                new Document("$eq", Arrays.asList("$$value", null)),
+                                outranks("$$this." + STOCK, "$$this.name", "$$value." + STOCK, "$$value.name"))),
+                        new Document(ID, "$$this." + ID).append("name", "$$this.name").append(STOCK, "$$this." + STOCK),
+                        "$$value"))));
+        return new Document("productCount", new Document("$size", products))
+                .append("totalStock", new Document("$sum", products + "." + STOCK))
+                .append(TOP_PRODUCT, top);
+    }
+
+    /**
+     * Same rule as {@link com.franchise.api.domain.BranchStockSummary}: higher stock wins, equal stock goes to
+     * the name that sorts first, so incremental updates and rescans agree whatever the write history.
+     */
+    private Document outranks(String stock, String name, String currentStock, String currentName) {
+        return new Document("$or", List.of(
+                new Document("$gt", List.of(stock, currentStock)),
+                new Document("$and", List.of(
+                        new Document("$eq", List.of(stock, currentStock)),
+                        new Document("$lt", List.of(name, currentName))))));
+    }
+
+    private Document mapBranches(Document in) {
+        return new Document("$map", new Document("input", "$" + BRANCHES).append("as", "b").append("in", in));
+    }
+
+    private Document let(Document vars, Document in) {
+        return new Document("$let", new Document("vars", vars).append("in", in));
+    }
+
+    private Document nextVersion() {
+        return new Document("$add", List.of(new Document("$ifNull", List.of("$" + VERSION, 0L)), 1L));
+    }
+
+    private Document productProjection(String branchId, String productId) {
+        Document branch = firstMatch("$" + BRANCHES, "b", branchId);
+        Document product = firstMatch("$$branch." + PRODUCTS, "p", productId);
+        return new Document(ID, 0)
+                .append(PRODUCT_RESULT, new Document("$let", new Document("vars", new Document("branch", branch))
+                        .append("in", product)));
+    }
+
+    private Document firstMatch(String input, String variable, String id) {
+        Document filter = new Document("$filter", new Document("input", input)
+                .append("as", variable)
+                .append("cond", new Document("$eq", List.of("$$" + variable + "." + ID, new Document("$literal", id)))));
+        return new Document("$arrayElemAt", List.of(filter, 0));
+    }
+
+    private Optional<Product> readProduct(Document result) {
+        if (result == null) {
+            return Optional.empty();
+        }
+        Document product = result.get(PRODUCT_RESULT, Document.class);
+        if (product == null) {
+            return Optional.empty();
+        }
+        return Optional.of(mongoTemplate.getConverter().read(Product.class, product));
+    }
+
+    private Object toFranchiseId(String franchiseId) {
+        return ObjectId.isValid(franchiseId) ? new ObjectId(franchiseId) : franchiseId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.franchise.api.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Collation;
+
+/**
+ * Case-insensitive collation shared by the unique name indexes and the queries that must hit them.
+ * A query only uses a collated index when it declares exactly the same collation.
+ */
+public final class MongoCollations {
+
+    public static final String CASE_INSENSITIVE = "{ 'locale' : 'es', 'strength' : 2 }";
+
+    /**
+     * U+FFFF sorts after every character under ICU collations, so {@code [prefix, prefix + PREFIX_END)} is the
+     * collated range of strings starting with {@code prefix}, and a range query on a collated index can serve it.
+     */
+    public static final String PREFIX_END = "\uFFFF";
+
+    private MongoCollations() {
+    }
+
+    public static Collation caseInsensitive() {
+        return Collation.from(Document.parse(CASE_INSENSITIVE));
+    }
+}
@@ -0,0 +1,76 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.ProductSearchResult;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Product persistence behind {@code FranchiseService}, so products can stay embedded in the franchise
+ * document or live in their own collection without changing the API. Name clashes surface as a
+ * {@link com.franchise.api.exception.ConflictException} when checked in memory (embedded) and as a
+ * {@link org.springframework.dao.DuplicateKeyException} from the unique index (collection).
+ */
+public interface ProductStore {
+
+    /**
+     * Fills {@code Branch.products} for responses. Only call it after the last save of the aggregate,
+     * otherwise externally stored products would be written back into the franchise document.
+     */
+    void loadProducts(Collection<Franchise> franchises);
+
+    default void loadProducts(Franchise franchise) {
+        loadProducts(List.of(franchise));
+    }
+
+    Optional<Product> findProduct(Franchise franchise, Branch branch, String productId);
+
+    void addProduct(Franchise franchise, Branch branch, Product product);
+
+    void renameProduct(Franchise franchise, Branch branch, Product product, String name);
+
+    boolean removeProduct(Franchise franchise, Branch branch, String productId);
+
+    void removeBranchProducts(String franchiseId, String branchId);
+
+    void removeFranchiseProducts(String franchiseId);
+
+    Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock);
+
+    /**
+     * Sets the stock only while the franchise is still at {@code expectedVersion}; throws an
+     * {@link org.springframework.dao.OptimisticLockingFailureException} when it is not.
+     */
+    Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock, long expectedVersion);
+
+    Optional<Product> adjustStock(String franchiseId, String branchId, String productId, int delta);
+
+    List<Franchise> findStockSnapshots(Collection<String> franchiseIds);
+
+    /**
+     * Name and stock of one product, read without loading the rest of the franchise.
+     */
+    Optional<Product> findProductStock(String franchiseId, String branchId, String productId);
+
+    /**
+     * Applies each write on its own, a relative one only while it keeps stock within {@code 0..Integer.MAX_VALUE},
+     * and reports every write in order; one product appears at most once in {@code writes}.
+     */
+    List<StockWriteResult> applyStockWrites(String franchiseId, List<StockWrite> writes);
+
+    List<FranchiseSummaryResponse> withProductCounts(List<FranchiseSummaryResponse> summaries);
+
+    List<TopProductPerBranchResponse> findTopProductPerBranch(String franchiseId);
+
+    /**
+     * Products whose name starts with {@code prefix}, ignoring case, ordered by name and product id and
+     * starting after {@code afterName}/{@code afterProductId} when those are given.
+     */
+    List<ProductSearchResult> searchProducts(String prefix, String afterName, String afterProductId, int limit);
+}
@@ -0,0 +1,7 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Franchise;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveFranchiseRepository extends ReactiveMongoRepository<Franchise, String> {
+}
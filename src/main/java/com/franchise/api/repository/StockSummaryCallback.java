@@ -0,0 +1,22 @@
+package com.franchise.api.repository;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whole-document saves always carry a stock summary per branch, also for aggregates that were built
+ * directly instead of through the {@link Branch} product methods.
+ */
+@Component
+public class StockSummaryCallback implements BeforeConvertCallback<Franchise> {
+
+    @Override
+    public Franchise onBeforeConvert(Franchise franchise, String collection) {
+        if (franchise.getBranches() != null) {
+            franchise.getBranches().forEach(Branch::ensureStockSummary);
+        }
+        return franchise;
+    }
+}
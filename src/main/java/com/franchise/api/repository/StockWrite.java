@@ -0,0 +1,7 @@
+package com.franchise.api.repository;
+
+/**
+ * A single stock write within a franchise: an absolute value, or a delta when {@code relative} is set.
+ */
+public record StockWrite(String branchId, String productId, int value, boolean relative) {
+}
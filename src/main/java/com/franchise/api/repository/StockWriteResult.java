@@ -0,0 +1,16 @@
+package com.franchise.api.repository;
+
+/**
+ * Outcome of one {@link StockWrite}: whether it was applied, and the stored stock of the product after it was
+ * (or instead of it being) applied; {@code stock} is null when the product no longer exists.
+ */
+public record StockWriteResult(boolean applied, Integer stock) {
+
+    public static StockWriteResult applied(int stock) {
+        return new StockWriteResult(true, stock);
+    }
+
+    public static StockWriteResult rejected(Integer stock) {
+        return new StockWriteResult(false, stock);
+    }
+}
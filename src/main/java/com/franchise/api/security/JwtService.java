@@ -1,6 +1,7 @@
 package com.franchise.api.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -25,6 +26,10 @@ public class JwtService {
 
     private final FranchiseSecurityProperties securityProperties;
 
+    // Derived once and shared lock-free: the parser is immutable, and a racing first request just builds an equal copy.
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -45,8 +50,8 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equalsIgnoreCase(userDetails.getUsername()) && !isTokenExpired(token);
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equalsIgnoreCase(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -61,32 +66,31 @@ public class JwtService {
                 .compact();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
     private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
         return claimsResolver.apply(claims);
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return getParser().parseClaimsJws(token).getBody();
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parserBuilder().setSigningKey(getSigningKey()).build();
+            parser = current;
+        }
+        return current;
     }
 
     private Key getSigningKey() {
-        String secret = securityProperties.getJwt().getSecret();
-        byte[] keyBytes = decodeSecret(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key current = signingKey;
+        if (current == null) {
+            current = Keys.hmacShaKeyFor(decodeSecret(securityProperties.getJwt().getSecret()));
+            signingKey = current;
+        }
+        return current;
     }
 
     public long getExpirationInMs() {
@@ -0,0 +1,22 @@
+package com.franchise.api.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserAccountDetailsService implements ReactiveUserDetailsService {
+
+    private final ReactiveUserAccountRepository repository;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return repository.findByUsernameIgnoreCase(username)
+                .map(UserAccountDetailsService::toUserDetails);
+    }
+}
@@ -0,0 +1,11 @@
+package com.franchise.api.security;
+
+import com.franchise.api.repository.MongoCollations;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserAccountRepository extends ReactiveMongoRepository<UserAccount, String> {
+    @Query(value = "{ 'username' : ?0 }", collation = MongoCollations.CASE_INSENSITIVE)
+    Mono<UserAccount> findByUsernameIgnoreCase(String username);
+}
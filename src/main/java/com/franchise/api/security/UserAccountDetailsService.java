@@ -1,23 +1,91 @@
 package com.franchise.api.security;
 
-import lombok.RequiredArgsConstructor;
+import com.franchise.api.config.CacheInvalidationEvent;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+
+/**
+ * Resolves accounts for login and for every JWT request. Resolved details are cached briefly by username;
+ * any user write, here or on another instance, drops the whole cache since change events only carry ids.
+ * Writes on other instances are only seen through change streams, so without them nothing is cached and a
+ * revoked role or disabled account takes effect on the next request everywhere.
+ */
 @Service
-@RequiredArgsConstructor
 public class UserAccountDetailsService implements UserDetailsService {
 
     private final UserAccountRepository repository;
+    private final Cache<String, UserDetails> cache;
+
+    public UserAccountDetailsService(UserAccountRepository repository, FranchiseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        if (properties.isEnabled() && properties.getChangeStreams().isEnabled()) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaximumSize())
+                    .expireAfterWrite(properties.getUserTtl())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CacheInvalidationEvent.USERS);
+        } else {
+            this.cache = null;
+        }
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (cache == null) {
+            return load(username);
+        }
+        // Authentication erases credentials on the returned instance, so callers always get their own copy.
+        return User.withUserDetails(cache.get(username.toLowerCase(Locale.ROOT), key -> load(username))).build();
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (event.concerns(CacheInvalidationEvent.USERS)) {
+            evictAll();
+        }
+    }
+
+    @EventListener
+    public void onUserSaved(AfterSaveEvent<?> event) {
+        if (CacheInvalidationEvent.USERS.equals(event.getCollectionName())) {
+            evictAll();
+        }
+    }
+
+    @EventListener
+    public void onUserDeleted(AfterDeleteEvent<?> event) {
+        if (CacheInvalidationEvent.USERS.equals(event.getCollectionName())) {
+            evictAll();
+        }
+    }
+
+    private UserDetails load(String username) {
         UserAccount account = repository.findByUsernameIgnoreCase(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User %s not found".formatted(username)));
+        return toUserDetails(account);
+    }
+
+    private void evictAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
 
+    static UserDetails toUserDetails(UserAccount account) {
         return User.withUsername(account.getUsername())
                 .password(account.getPassword())
                 .disabled(!account.isActive())
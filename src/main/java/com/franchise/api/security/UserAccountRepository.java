@@ -1,13 +1,17 @@
 package com.franchise.api.security;
 
+import com.franchise.api.repository.MongoCollations;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.Optional;
 
 public interface UserAccountRepository extends MongoRepository<UserAccount, String> {
+    @Query(value = "{ 'username' : ?0 }", collation = MongoCollations.CASE_INSENSITIVE)
     Optional<UserAccount> findByUsernameIgnoreCase(String username);
 
     Optional<UserAccount> findByPasswordResetToken(String token);
 
+    @Query(value = "{ 'email' : ?0 }", collation = MongoCollations.CASE_INSENSITIVE)
     Optional<UserAccount> findByEmailIgnoreCase(String email);
 }
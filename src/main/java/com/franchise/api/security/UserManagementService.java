@@ -6,7 +6,11 @@ import com.franchise.api.dto.UserResponse;
 import com.franchise.api.exception.BadRequestException;
 import com.franchise.api.exception.ConflictException;
 import com.franchise.api.exception.ResourceNotFoundException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoWriteException;
 import lombok.RequiredArgsConstructor;
+import org.bson.BsonDocument;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -20,6 +24,8 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class UserManagementService {
 
+    private static final String EMAIL = "email";
+
     private final UserAccountRepository repository;
     private final PasswordEncoder passwordEncoder;
 
@@ -28,16 +34,14 @@ public class UserManagementService {
         String fullName = normalize(request.fullName(), "El nombre completo es obligatorio");
         String email = normalizeEmail(request.email());
 
-        repository.findByUsernameIgnoreCase(username)
-                .ifPresent(existing -> {
-                    throw new ConflictException("Ya existe un usuario con el nombre '%s'".formatted(username));
-                });
-        repository.findByEmailIgnoreCase(email)
-                .ifPresent(existing -> {
-                    throw new ConflictException("Ya existe un usuario con el correo '%s'".formatted(email));
-                });
-
         Set<Role> roles = resolveRoles(request.roles());
+        // Checked before hashing, so a clash does not cost a BCrypt round; the unique indexes still decide races.
+        if (repository.findByUsernameIgnoreCase(username).isPresent()) {
+            throw duplicateUsername(username);
+        }
+        if (repository.findByEmailIgnoreCase(email).isPresent()) {
+            throw duplicateEmail(email);
+        }
         String encodedPassword = passwordEncoder.encode(request.password());
 
         UserAccount account = UserAccount.builder()
@@ -49,8 +53,11 @@ public class UserManagementService {
                 .active(true)
                 .passwordChangeRequired(true)
                 .build();
-        UserAccount saved = repository.save(account);
-        return toResponse(saved);
+        try {
+            return toResponse(repository.insert(account));
+        } catch (DuplicateKeyException ex) {
+            throw isEmailConflict(ex, email) ? duplicateEmail(email) : duplicateUsername(username);
+        }
     }
 
     public List<UserResponse> getUsers() {
@@ -112,6 +119,39 @@ public class UserManagementService {
         return roles;
     }
 
+    /**
+     * Which unique field a concurrent insert took: the key the server reports with the error when the driver
+     * exposes it, otherwise whether the email is now taken.
+     */
+    private boolean isEmailConflict(DuplicateKeyException ex, String email) {
+        BsonDocument key = duplicateKey(ex.getCause());
+        if (key != null) {
+            return key.containsKey(EMAIL);
+        }
+        return repository.findByEmailIgnoreCase(email).isPresent();
+    }
+
+    private static BsonDocument duplicateKey(Throwable cause) {
+        BsonDocument error = null;
+        if (cause instanceof MongoWriteException write) {
+            error = write.getError().getDetails();
+        } else if (cause instanceof MongoCommandException command) {
+            error = command.getResponse();
+        }
+        if (error == null) {
+            return null;
+        }
+        return error.isDocument("keyPattern") ? error.getDocument("keyPattern") : error.getDocument("keyValue", null);
+    }
+
+    private ConflictException duplicateUsername(String username) {
+        return new ConflictException("Ya existe un usuario con el nombre '%s'".formatted(username));
+    }
+
+    private ConflictException duplicateEmail(String email) {
+        return new ConflictException("Ya existe un usuario con el correo '%s'".formatted(email));
+    }
+
     private UserResponse toResponse(UserAccount account) {
         return new UserResponse(
                 account.getId(),
@@ -0,0 +1,109 @@
+package com.franchise.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.ExportFormat;
+import com.franchise.api.dto.ProductExportLine;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.mapper.FranchiseJsonSerializer;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.ProductStore;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog as newline-delimited JSON straight from a Mongo cursor, one document at a time.
+ * Franchise lines are written from the domain objects by {@link FranchiseJsonSerializer}.
+ */
+@Service
+public class FranchiseExportService {
+
+    private final FranchiseRepository franchiseRepository;
+    private final ProductStore productStore;
+    private final ObjectWriter writer;
+
+    public FranchiseExportService(FranchiseRepository franchiseRepository, ProductStore productStore, ObjectMapper objectMapper) {
+        this.franchiseRepository = franchiseRepository;
+        this.productStore = productStore;
+        this.writer = objectMapper.copy()
+                .registerModule(FranchiseJsonSerializer.module())
+                .writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public ExportFormat resolveFormat(String format) {
+        if (!StringUtils.hasText(format)) {
+            return ExportFormat.FRANCHISE;
+        }
+        try {
+            return ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Export format '%s' is not valid. Allowed values: franchise, product".formatted(format));
+        }
+    }
+
+    public void export(OutputStream output, Boolean active, ExportFormat format) throws IOException {
+        try (Stream<Franchise> franchises = franchiseRepository.streamFranchises(active);
+             JsonGenerator generator = writer.createGenerator(output)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            Iterator<Franchise> iterator = franchises.iterator();
+            boolean written = false;
+            while (iterator.hasNext()) {
+                written |= writeFranchise(generator, iterator.next(), format);
+            }
+            if (written) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private boolean writeFranchise(JsonGenerator generator, Franchise franchise, ExportFormat format) throws IOException {
+        productStore.loadProducts(franchise);
+        if (format == ExportFormat.FRANCHISE) {
+            writer.writeValue(generator, franchise);
+            return true;
+        }
+        boolean written = false;
+        boolean franchiseActive = franchise.getActive() == null || Boolean.TRUE.equals(franchise.getActive());
+        for (Branch branch : nullSafe(franchise.getBranches())) {
+            if (branch == null) {
+                continue;
+            }
+            for (Product product : nullSafe(branch.getProducts())) {
+                if (product == null) {
+                    continue;
+                }
+                writer.writeValue(generator, new ProductExportLine(
+                        franchise.getId(),
+                        franchise.getName(),
+                        franchiseActive,
+                        branch.getId(),
+                        branch.getName(),
+                        branch.isActive(),
+                        product.getId(),
+                        product.getName(),
+                        product.getStock()));
+                written = true;
+            }
+        }
+        return written;
+    }
+
+    private <T> List<T> nullSafe(List<T> items) {
+        return items == null ? List.of() : items;
+    }
+}
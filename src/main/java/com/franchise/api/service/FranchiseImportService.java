@@ -0,0 +1,568 @@
+package com.franchise.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.config.ProductStorageMode;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.BranchProduct;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.ImportFormat;
+import com.franchise.api.dto.ImportReport;
+import com.franchise.api.dto.ImportRow;
+import com.franchise.api.dto.ImportRowError;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.exception.ConflictException;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.ProductStore;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.franchise.api.service.FranchiseRules.ensureNameIsPresent;
+import static com.franchise.api.service.FranchiseRules.ensureNonNegativeStock;
+import static com.franchise.api.service.FranchiseRules.isActive;
+import static com.franchise.api.service.FranchiseRules.normalizeName;
+
+/**
+ * Imports franchises, branches and products from a CSV or NDJSON stream. Rows are read one at a time and
+ * applied in batches of {@code franchise.persistence.imports.batch-size}: the franchises a batch names are read
+ * once, the rows are validated with the rules of {@link FranchiseService} against the aggregates in memory,
+ * and new franchises and products are written with unordered bulk inserts. Franchises, branches and products
+ * that already exist are reused by name, so an import can be run again after fixing the rows it rejected: a
+ * product row matching an existing product by name and stock is counted as skipped.
+ */
+@Service
+@Slf4j
+public class FranchiseImportService {
+
+    private static final String CSV_COLUMNS = "franchise,branch,product,stock";
+
+    private final FranchiseRepository franchiseRepository;
+    private final ProductStore productStore;
+    private final MongoTemplate mongoTemplate;
+    private final FranchiseResponseCache responseCache;
+    private final FranchisePersistenceProperties properties;
+    private final ObjectReader rowReader;
+
+    public FranchiseImportService(FranchiseRepository franchiseRepository,
+                                  ProductStore productStore,
+                                  MongoTemplate mongoTemplate,
+                                  FranchiseResponseCache responseCache,
+                                  FranchisePersistenceProperties properties,
+                                  ObjectMapper objectMapper) {
+        this.franchiseRepository = franchiseRepository;
+        this.productStore = productStore;
+        this.mongoTemplate = mongoTemplate;
+        this.responseCache = responseCache;
+        this.properties = properties;
+        this.rowReader = objectMapper.readerFor(ImportRow.class);
+    }
+
+    /**
+     * Resolves the explicit {@code format}, or guesses it from the content type, defaulting to CSV.
+     */
+    public ImportFormat resolveFormat(String format, String contentType) {
+        if (!StringUtils.hasText(format)) {
+            boolean json = contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
+            return json ? ImportFormat.NDJSON : ImportFormat.CSV;
+        }
+        try {
+            return ImportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Import format '%s' is not valid. Allowed values: csv, ndjson".formatted(format));
+        }
+    }
+
+    public ImportReport importFranchises(InputStream input, ImportFormat format) throws IOException {
+        long started = System.nanoTime();
+        FranchisePersistenceProperties.Imports settings = properties.getImports();
+        int batchSize = Math.max(1, settings.getBatchSize());
+        ImportProgress progress = new ImportProgress(Math.max(0, settings.getMaxReportedErrors()));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        RowSource rows = format == ImportFormat.NDJSON ? new NdjsonRows(reader, rowReader) : new CsvRows(reader);
+        List<NumberedRow> batch = new ArrayList<>(batchSize);
+        for (NumberedRow row = rows.next(); row != null; row = rows.next()) {
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                importBatch(batch, progress);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, progress);
+        }
+        ImportReport report = progress.report(System.nanoTime() - started);
+        log.info("Imported {} of {} rows ({} already present) in {} ms ({} rows/s): {} franchises, {} branches and {} products created",
+                report.imported(), report.rows(), report.skipped(), report.elapsedMs(), report.rowsPerSecond(),
+                report.franchisesCreated(), report.branchesCreated(), report.productsCreated());
+        return report;
+    }
+
+    private void importBatch(List<NumberedRow> batch, ImportProgress progress) {
+        boolean collection = properties.getProducts().getStorage() == ProductStorageMode.COLLECTION;
+        Set<String> names = new LinkedHashSet<>();
+        for (NumberedRow row : batch) {
+            String name = row.row() == null ? null : normalizeName(row.row().franchise());
+            if (StringUtils.hasText(name)) {
+                names.add(name);
+            }
+        }
+        List<Franchise> stored = franchiseRepository.findByNames(names);
+        if (collection) {
+            productStore.loadProducts(stored);
+        }
+        Map<String, Franchise> existing = new HashMap<>();
+        stored.forEach(franchise -> existing.put(nameKey(franchise.getName()), franchise));
+
+        Map<String, ImportedFranchise> touched = new LinkedHashMap<>();
+        for (NumberedRow row : batch) {
+            progress.rows++;
+            if (row.error() != null) {
+                progress.fail(row.line(), row.error());
+                continue;
+            }
+            try {
+                if (!apply(row, existing, touched)) {
+                    progress.skipped++;
+                }
+            } catch (BadRequestException | ConflictException ex) {
+                progress.fail(row.line(), ex.getMessage());
+            }
+        }
+        write(touched.values(), progress, collection);
+    }
+
+    /**
+     * @return false when the row names a product that already exists with the same stock, so there is nothing to write
+     */
+    private boolean apply(NumberedRow numbered, Map<String, Franchise> existing, Map<String, ImportedFranchise> touched) {
+        ImportRow row = numbered.row();
+        String franchiseName = normalizeName(row.franchise());
+        ensureNameIsPresent(franchiseName, "Franchise name is required");
+        String branchName = normalizeName(row.branch());
+        String productName = normalizeName(row.product());
+        if (StringUtils.hasText(productName)) {
+            ensureNameIsPresent(branchName, "Branch name is required");
+        }
+        Integer stock = null;
+        if (StringUtils.hasText(productName)) {
+            stock = ensureNonNegativeStock(row.stock());
+        } else if (row.stock() != null) {
+            throw new BadRequestException("Product name is required");
+        }
+
+        String key = nameKey(franchiseName);
+        ImportedFranchise target = touched.get(key);
+        Franchise franchise = target != null ? target.franchise : existing.get(key);
+        Branch branch = null;
+        if (franchise != null && StringUtils.hasText(branchName)) {
+            if (!isActive(franchise)) {
+                throw new BadRequestException("Cannot add branches to an inactive franchise");
+            }
+            branch = franchise.findBranchByName(branchName).orElse(null);
+            if (branch != null && StringUtils.hasText(productName)) {
+                if (!branch.isActive()) {
+                    throw new BadRequestException("Cannot add products to an inactive branch");
+                }
+                Optional<Product> current = branch.findProductByName(productName);
+                if (current.isPresent()) {
+                    if (current.get().getStock() == stock) {
+                        return false;
+                    }
+                    throw new ConflictException("Product with name '%s' already exists in branch".formatted(productName));
+                }
+            }
+        }
+
+        // The row is valid from here on; only the writes can still reject it.
+        if (target == null) {
+            target = franchise != null ? new ImportedFranchise(franchise, false) : new ImportedFranchise(Franchise.builder()
+                    .id(new ObjectId().toHexString())
+                    .name(franchiseName)
+                    .active(true)
+                    .version(0L)
+                    .build(), true);
+            touched.put(key, target);
+        }
+        target.lines.add(numbered.line());
+        if (!StringUtils.hasText(branchName)) {
+            return true;
+        }
+        if (branch == null) {
+            branch = Branch.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(branchName)
+                    .active(true)
+                    .build();
+            target.franchise.addBranch(branch);
+            target.branchesCreated++;
+            target.changed = true;
+        }
+        if (StringUtils.hasText(productName)) {
+            Product product = Product.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(productName)
+                    .stock(stock)
+                    .build();
+            branch.addProduct(product);
+            target.products.add(new ImportedProduct(numbered.line(), BranchProduct.builder()
+                    .id(product.getId())
+                    .franchiseId(target.franchise.getId())
+                    .branchId(branch.getId())
+                    .name(productName)
+                    .stock(stock)
+                    .build()));
+            target.changed = true;
+        }
+        return true;
+    }
+
+    private void write(Iterable<ImportedFranchise> touched, ImportProgress progress, boolean collection) {
+        List<ImportedFranchise> created = new ArrayList<>();
+        List<ImportedFranchise> written = new ArrayList<>();
+        for (ImportedFranchise imported : touched) {
+            if (collection) {
+                // Products are written to their own collection; the franchise document only keeps its branches.
+                imported.franchise.getBranches().forEach(branch -> {
+                    branch.setProducts(new ArrayList<>());
+                    branch.setStockSummary(null);
+                });
+            }
+            if (imported.created) {
+                created.add(imported);
+            } else if (!imported.changed) {
+                written.add(imported);
+            } else if (save(imported, progress)) {
+                written.add(imported);
+            }
+        }
+        Set<String> inserted = insertAll(created, imported -> imported.franchise, Franchise::getId, Franchise.class);
+        for (ImportedFranchise imported : created) {
+            if (inserted.contains(imported.franchise.getId())) {
+                written.add(imported);
+                progress.franchisesCreated++;
+            } else {
+                imported.lines.forEach(line -> progress.fail(line,
+                        "Franchise with name '%s' already exists".formatted(imported.franchise.getName())));
+            }
+        }
+
+        Set<Long> failedProducts = collection ? insertProducts(written, progress) : Set.of();
+        for (ImportedFranchise imported : written) {
+            progress.branchesCreated += imported.branchesCreated;
+            for (long line : imported.lines) {
+                if (!failedProducts.contains(line)) {
+                    progress.imported++;
+                }
+            }
+            if (!collection) {
+                progress.productsCreated += imported.products.size();
+            }
+            if (!imported.created && imported.changed) {
+                responseCache.evict(imported.franchise.getId());
+            }
+        }
+    }
+
+    private boolean save(ImportedFranchise imported, ImportProgress progress) {
+        try {
+            franchiseRepository.save(imported.franchise);
+            return true;
+        } catch (OptimisticLockingFailureException ex) {
+            imported.lines.forEach(line -> progress.fail(line,
+                    "Franchise '%s' was modified during the import; import this row again".formatted(imported.franchise.getName())));
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the products of the written franchises and bumps their versions afterwards, like
+     * {@link ProductStore#addProduct}, so cached responses and entity tags do not outlive the insert.
+     */
+    private Set<Long> insertProducts(List<ImportedFranchise> written, ImportProgress progress) {
+        List<ImportedProduct> products = new ArrayList<>();
+        written.forEach(imported -> products.addAll(imported.products));
+        if (products.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> inserted = insertAll(products, ImportedProduct::product, BranchProduct::getId, BranchProduct.class);
+        Set<Long> failed = new HashSet<>();
+        for (ImportedProduct product : products) {
+            if (inserted.contains(product.product().getId())) {
+                progress.productsCreated++;
+            } else {
+                failed.add(product.line());
+                progress.fail(product.line(), "Product with name '%s' already exists in branch".formatted(product.product().getName()));
+            }
+        }
+        List<String> franchiseIds = written.stream()
+                .filter(imported -> !imported.products.isEmpty())
+                .map(imported -> imported.franchise.getId())
+                .toList();
+        mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(franchiseIds)), new Update().inc("version", 1L), Franchise.class);
+        return failed;
+    }
+
+    /**
+     * Unordered bulk insert returning the ids that were written. When some inserts fail, typically on a unique
+     * name index because of a concurrent writer, the ids that made it are read back instead of relying on the
+     * error indexes of the bulk result.
+     */
+    private <T, D> Set<String> insertAll(List<T> items, Function<T, D> document, Function<D, String> id, Class<D> type) {
+        List<D> documents = items.stream().map(document).toList();
+        Set<String> ids = new LinkedHashSet<>();
+        documents.forEach(written -> ids.add(id.apply(written)));
+        if (documents.isEmpty()) {
+            return ids;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        bulk.insert(documents);
+        try {
+            bulk.execute();
+            return ids;
+        } catch (DataAccessException ex) {
+            log.debug("Bulk insert of {} {} documents partially failed: {}", documents.size(), type.getSimpleName(), ex.getMessage());
+            Query query = Query.query(Criteria.where("id").in(ids));
+            query.fields().include("id");
+            Set<String> inserted = new HashSet<>();
+            mongoTemplate.find(query, type).forEach(stored -> inserted.add(id.apply(stored)));
+            return inserted;
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private record NumberedRow(long line, ImportRow row, String error) {
+    }
+
+    private record ImportedProduct(long line, BranchProduct product) {
+    }
+
+    /**
+     * A franchise read or created by the current batch, with the lines applied to it.
+     */
+    private static final class ImportedFranchise {
+
+        private final Franchise franchise;
+        private final boolean created;
+        private final List<Long> lines = new ArrayList<>();
+        private final List<ImportedProduct> products = new ArrayList<>();
+        private boolean changed;
+        private long branchesCreated;
+
+        private ImportedFranchise(Franchise franchise, boolean created) {
+            this.franchise = franchise;
+            this.created = created;
+            this.changed = created;
+        }
+    }
+
+    private static final class ImportProgress {
+
+        private final int maxReportedErrors;
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long failed;
+        private long skipped;
+        private long franchisesCreated;
+        private long branchesCreated;
+        private long productsCreated;
+
+        private ImportProgress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportRowError(line, message));
+            }
+        }
+
+        private ImportReport report(long elapsedNanos) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            long rowsPerSecond = elapsedNanos == 0 ? rows : rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+            errors.sort((left, right) -> Long.compare(left.line(), right.line()));
+            return new ImportReport(rows, imported, failed, skipped, franchisesCreated, branchesCreated, productsCreated,
+                    elapsedMs, rowsPerSecond, List.copyOf(errors), failed > errors.size());
+        }
+    }
+
+    private interface RowSource {
+
+        /**
+         * The next non-blank record, or null at the end of the input.
+         */
+        NumberedRow next() throws IOException;
+    }
+
+    private static final class NdjsonRows implements RowSource {
+
+        private final BufferedReader reader;
+        private final ObjectReader rowReader;
+        private long line;
+
+        private NdjsonRows(BufferedReader reader, ObjectReader rowReader) {
+            this.reader = reader;
+            this.rowReader = rowReader;
+        }
+
+        @Override
+        public NumberedRow next() throws IOException {
+            for (String text = reader.readLine(); text != null; text = reader.readLine()) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new NumberedRow(line, rowReader.readValue(text), null);
+                } catch (JsonProcessingException ex) {
+                    return new NumberedRow(line, null, "Malformed JSON: " + ex.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * RFC 4180 records with a header row naming the {@code franchise}, {@code branch}, {@code product} and
+     * {@code stock} columns in any order; quoted fields may contain commas, doubled quotes and line breaks.
+     */
+    private static final class CsvRows implements RowSource {
+
+        private final BufferedReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long line;
+        private boolean headerRead;
+
+        private CsvRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public NumberedRow next() throws IOException {
+            if (!headerRead) {
+                readHeader();
+            }
+            while (true) {
+                long start = line + 1;
+                List<String> fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                String stock = field(fields, "stock");
+                Integer stockValue = null;
+                if (StringUtils.hasText(stock)) {
+                    try {
+                        stockValue = Integer.valueOf(stock.trim());
+                    } catch (NumberFormatException ex) {
+                        return new NumberedRow(start, null, "Stock must be a whole number");
+                    }
+                }
+                return new NumberedRow(start,
+                        new ImportRow(field(fields, "franchise"), field(fields, "branch"), field(fields, "product"), stockValue), null);
+            }
+        }
+
+        private void readHeader() throws IOException {
+            headerRead = true;
+            List<String> header = readRecord();
+            if (header == null) {
+                return;
+            }
+            for (int index = 0; index < header.size(); index++) {
+                String column = header.get(index).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                columns.putIfAbsent(column, index);
+            }
+            if (!columns.containsKey("franchise")) {
+                throw new BadRequestException("CSV header must name the columns " + CSV_COLUMNS);
+            }
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= fields.size() ? null : fields.get(index);
+        }
+
+        private List<String> readRecord() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            List<String> fields = new ArrayList<>(4);
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int index = 0; index < text.length(); index++) {
+                    char character = text.charAt(index);
+                    if (quoted) {
+                        if (character != '"') {
+                            current.append(character);
+                        } else if (index + 1 < text.length() && text.charAt(index + 1) == '"') {
+                            current.append('"');
+                            index++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else if (character == '"') {
+                        quoted = true;
+                    } else if (character == ',') {
+                        fields.add(current.toString());
+                        current.setLength(0);
+                    } else {
+                        current.append(character);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                String continuation = reader.readLine();
+                if (continuation == null) {
+                    break;
+                }
+                line++;
+                current.append('\n');
+                text = continuation;
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.franchise.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.franchise.api.config.CacheInvalidationEvent;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.mapper.FranchiseFields;
+import com.franchise.api.mapper.FranchiseJsonSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.event.EventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bounded in-process cache of franchise responses serialized once to JSON (and gzip), keyed by franchise
+ * id and tagged with the document version, so hot reads skip mapping and Jackson entirely; every hit is
+ * checked against the stored tag, so the TTL only bounds memory, not staleness. Misses write
+ * the loaded aggregate directly with {@link FranchiseJsonSerializer}. Writers evict
+ * after persisting: Caffeine blocks the eviction until an in-flight load of the same key completes, so a
+ * read that started before the write cannot re-populate the entry with the old document. Bulk loads run
+ * outside Caffeine, so {@link #getAll} only stores what it loaded when no eviction happened since the load
+ * started; every eviction bumps a counter before invalidating, which the store checks atomically per key.
+ */
+public class FranchiseResponseCache {
+
+    public static final String CACHE_NAME = "franchises";
+
+    private final Cache<String, SerializedResponse> cache;
+    private final ObjectWriter writer;
+    private final int gzipMinSize;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FranchiseResponseCache(FranchiseCacheProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.writer = objectMapper.copy().registerModule(FranchiseJsonSerializer.module()).writerFor(Franchise.class);
+        this.gzipMinSize = properties.isGzip() ? properties.getGzipMinSize() : Integer.MAX_VALUE;
+        if (!properties.isEnabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * The cached entry while it is still at the stored tag, read with {@code storedTag} (empty once the franchise
+     * is gone); otherwise loaded and cached anew. Writes made by other instances are therefore never served
+     * from here, whether or not change streams evict them, and a miss costs no extra read.
+     */
+    public SerializedResponse get(String franchiseId, Function<String, Optional<String>> storedTag,
+                                  Function<String, Versioned<Franchise>> loader) {
+        if (cache == null) {
+            return serialize(loader.apply(franchiseId));
+        }
+        SerializedResponse cached = cache.getIfPresent(franchiseId);
+        if (cached != null && storedTag.apply(franchiseId).filter(cached.tag()::equals).isEmpty()) {
+            cache.asMap().remove(franchiseId, cached);
+        }
+        return cache.get(franchiseId, id -> serialize(loader.apply(id)));
+    }
+
+    /**
+     * Entries for every id in {@code tagsById}, reusing those cached at the given tag and loading the rest
+     * in a single call. Ids the loader no longer finds are left out of the result.
+     */
+    public Map<String, SerializedResponse> getAll(Map<String, String> tagsById,
+                                                  Function<Set<String>, Map<String, Versioned<Franchise>>> loader) {
+        if (cache == null) {
+            return serializeAll(loader.apply(tagsById.keySet()));
+        }
+        Map<String, SerializedResponse> entries = new LinkedHashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        tagsById.forEach((id, tag) -> {
+            SerializedResponse cached = cache.getIfPresent(id);
+            if (cached != null && cached.tag().equals(tag)) {
+                entries.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        });
+        if (!missing.isEmpty()) {
+            long seen = evictions.get();
+            serializeAll(loader.apply(missing)).forEach((id, loaded) -> {
+                entries.put(id, loaded);
+                cache.asMap().compute(id, (ignored, current) -> evictions.get() == seen ? loaded : current);
+            });
+        }
+        return entries;
+    }
+
+    /**
+     * Serializes without caching and without a gzip copy; sparse fieldsets are not cached.
+     */
+    public SerializedResponse write(Versioned<Franchise> franchise, FranchiseFields fields) {
+        try {
+            return new SerializedResponse(franchise.tag(),
+                    writer.withAttribute(FranchiseJsonSerializer.FIELDS, fields).writeValueAsBytes(franchise.body()), null);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize franchise " + franchise.body().getId(), ex);
+        }
+    }
+
+    public void evict(String franchiseId) {
+        if (cache != null && franchiseId != null) {
+            evictions.incrementAndGet();
+            cache.invalidate(franchiseId);
+        }
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (cache == null || !event.concerns(CacheInvalidationEvent.FRANCHISES)) {
+            return;
+        }
+        evictions.incrementAndGet();
+        if (event.documentId() == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(event.documentId());
+        }
+    }
+
+    private Map<String, SerializedResponse> serializeAll(Map<String, Versioned<Franchise>> franchises) {
+        Map<String, SerializedResponse> serialized = new LinkedHashMap<>();
+        franchises.forEach((id, franchise) -> serialized.put(id, serialize(franchise)));
+        return serialized;
+    }
+
+    private SerializedResponse serialize(Versioned<Franchise> franchise) {
+        try {
+            byte[] json = writer.writeValueAsBytes(franchise.body());
+            return new SerializedResponse(franchise.tag(), json, json.length >= gzipMinSize ? gzip(json) : null);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize franchise " + franchise.body().getId(), ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(buffer)) {
+            compressed.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toByteArray();
+    }
+}
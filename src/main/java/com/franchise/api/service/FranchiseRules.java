@@ -0,0 +1,41 @@
+package com.franchise.api.service;
+
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.exception.BadRequestException;
+import org.springframework.util.StringUtils;
+
+/**
+ * Validation rules shared by the blocking and reactive franchise services.
+ */
+final class FranchiseRules {
+
+    private FranchiseRules() {
+    }
+
+    static boolean isActive(Franchise franchise) {
+        return franchise.getActive() == null || Boolean.TRUE.equals(franchise.getActive());
+    }
+
+    static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return StringUtils.trimWhitespace(name);
+    }
+
+    static void ensureNameIsPresent(String name, String message) {
+        if (!StringUtils.hasText(name)) {
+            throw new BadRequestException(message);
+        }
+    }
+
+    static int ensureNonNegativeStock(Integer stock) {
+        if (stock == null) {
+            throw new BadRequestException("Stock value is required");
+        }
+        if (stock < 0) {
+            throw new BadRequestException("Stock must be greater than or equal to 0");
+        }
+        return stock;
+    }
+}
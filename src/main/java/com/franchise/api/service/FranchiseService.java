@@ -3,12 +3,21 @@ package com.franchise.api.service;
 import com.franchise.api.domain.Branch;
 import com.franchise.api.domain.Franchise;
 import com.franchise.api.domain.Product;
+import com.franchise.api.dto.AdjustProductStockRequest;
 import com.franchise.api.dto.BranchResponse;
+import com.franchise.api.dto.BulkStockUpdateItem;
+import com.franchise.api.dto.BulkStockUpdateRequest;
+import com.franchise.api.dto.BulkStockUpdateResponse;
+import com.franchise.api.dto.BulkStockUpdateResult;
+import com.franchise.api.dto.BulkStockUpdateStatus;
 import com.franchise.api.dto.CreateBranchRequest;
 import com.franchise.api.dto.CreateFranchiseRequest;
 import com.franchise.api.dto.CreateProductRequest;
 import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.PageResponse;
 import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.ProductSearchResult;
 import com.franchise.api.dto.TopProductPerBranchResponse;
 import com.franchise.api.dto.UpdateBranchNameRequest;
 import com.franchise.api.dto.UpdateBranchStatusRequest;
@@ -18,230 +27,638 @@ import com.franchise.api.dto.UpdateProductNameRequest;
 import com.franchise.api.dto.UpdateProductStockRequest;
 import com.franchise.api.exception.BadRequestException;
 import com.franchise.api.exception.ConflictException;
+import com.franchise.api.exception.PreconditionFailedException;
 import com.franchise.api.exception.ResourceNotFoundException;
+import com.franchise.api.mapper.FranchiseFields;
 import com.franchise.api.mapper.FranchiseMapper;
 import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.ProductStore;
+import com.franchise.api.repository.StockWrite;
+import com.franchise.api.repository.StockWriteResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.franchise.api.service.FranchiseRules.ensureNameIsPresent;
+import static com.franchise.api.service.FranchiseRules.ensureNonNegativeStock;
+import static com.franchise.api.service.FranchiseRules.isActive;
+import static com.franchise.api.service.FranchiseRules.normalizeName;
 
 @Service
 @RequiredArgsConstructor
 public class FranchiseService {
 
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_QUERY_LENGTH = 100;
+
+    // Separates the product name from its id in search cursors; names are trimmed text and never contain it.
+    private static final char SEARCH_CURSOR_SEPARATOR = '\u0000';
+
     private final FranchiseRepository franchiseRepository;
+    private final ProductStore productStore;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final FranchiseResponseCache responseCache;
+    private final StockWriteBuffer stockBuffer;
 
     public FranchiseResponse createFranchise(CreateFranchiseRequest request) {
         String name = normalizeName(request.name());
         ensureNameIsPresent(name, "Franchise name is required");
-        franchiseRepository.findByNameIgnoreCase(name)
-                .ifPresent(existing -> {
-                    throw new ConflictException("Franchise with name '%s' already exists".formatted(name));
-                });
         Franchise franchise = Franchise.builder()
                 .name(name)
                 .active(request.active() == null || Boolean.TRUE.equals(request.active()))
                 .build();
-        Franchise saved = franchiseRepository.save(franchise);
-        return FranchiseMapper.toResponse(saved);
+        try {
+            return FranchiseMapper.toResponse(franchiseRepository.insert(franchise));
+        } catch (DuplicateKeyException ex) {
+            throw duplicateFranchiseName(name);
+        }
     }
 
     public FranchiseResponse updateFranchiseName(String franchiseId, UpdateFranchiseNameRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        String newName = normalizeName(request.name());
-        ensureNameIsPresent(newName, "Franchise name is required");
-        boolean sameName = franchise.getName() != null && franchise.getName().equalsIgnoreCase(newName);
-        if (!sameName) {
-            franchiseRepository.findByNameIgnoreCase(newName)
-                    .filter(existing -> !existing.getId().equals(franchiseId))
-                    .ifPresent(existing -> {
-                        throw new ConflictException("Franchise with name '%s' already exists".formatted(newName));
-                    });
-            franchise.setName(newName);
-            franchise = franchiseRepository.save(franchise);
-        }
-        return FranchiseMapper.toResponse(franchise);
+        return updateFranchiseName(franchiseId, request, null).body();
+    }
+
+    /**
+     * @param expectedTag tag from {@code If-Match}, or {@code null} to update unconditionally
+     */
+    public Versioned<FranchiseResponse> updateFranchiseName(String franchiseId, UpdateFranchiseNameRequest request, String expectedTag) {
+        return evictAfter(franchiseId, () -> retryExecutor.execute("updateFranchiseName", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            String newName = normalizeName(request.name());
+            ensureNameIsPresent(newName, "Franchise name is required");
+            boolean sameName = franchise.getName() != null && franchise.getName().equalsIgnoreCase(newName);
+            if (!sameName) {
+                franchise.setName(newName);
+                try {
+                    franchise = franchiseRepository.save(franchise);
+                } catch (DuplicateKeyException ex) {
+                    throw duplicateFranchiseName(newName);
+                }
+            }
+            return toVersionedResponse(franchise);
+        }));
     }
 
     public FranchiseResponse getFranchiseById(String franchiseId) {
-        return FranchiseMapper.toResponse(getFranchise(franchiseId));
+        return toVersionedResponse(getFranchise(franchiseId)).body();
+    }
+
+    /**
+     * The franchise as cached JSON; a hit costs a read of the version, only a miss or a newer version loads,
+     * maps and serializes the document.
+     */
+    public SerializedResponse getSerializedFranchise(String franchiseId) {
+        return responseCache.get(franchiseId, this::findFranchiseTag, id -> withProducts(getFranchise(id)));
+    }
+
+    /**
+     * A sparse fieldset reads only the selected fields from Mongo and bypasses the response cache.
+     */
+    public SerializedResponse getSerializedFranchise(String franchiseId, FranchiseFields fields) {
+        if (fields.isAll()) {
+            return getSerializedFranchise(franchiseId);
+        }
+        Franchise franchise = franchiseRepository.findByIdIncluding(franchiseId, fields.projection())
+                .orElseThrow(() -> new ResourceNotFoundException("Franchise with id '%s' not found".formatted(franchiseId)));
+        if (fields.includesProducts()) {
+            loadProducts(franchise);
+        }
+        return responseCache.write(new Versioned<>(franchise, tagOf(franchise)), fields);
+    }
+
+    /**
+     * Current tag of a franchise without loading it, from a projection on {@code version}. Empty when the
+     * franchise does not exist.
+     */
+    public Optional<String> findFranchiseTag(String franchiseId) {
+        return franchiseRepository.findVersionById(franchiseId).map(version -> tagOf(franchiseId, version));
     }
 
     public List<FranchiseResponse> getAllFranchises() {
-        return franchiseRepository.findAll().stream()
+        List<Franchise> franchises = franchiseRepository.findAll();
+        loadProducts(franchises);
+        return franchises.stream()
                 .map(FranchiseMapper::toResponse)
                 .toList();
     }
 
-    public FranchiseResponse updateFranchiseStatus(String franchiseId, UpdateFranchiseStatusRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        boolean currentActive = isActive(franchise);
-        boolean requested = Boolean.TRUE.equals(request.active());
-        if (currentActive != requested) {
-            franchise.setActive(requested);
-            franchiseRepository.save(franchise);
+    /**
+     * The full list as a JSON array stitched from the cached per-franchise JSON. Only franchises missing
+     * from the cache, or cached at an older version than the id/version projection reports, are loaded.
+     */
+    public SerializedResponse getSerializedFranchises() {
+        Map<String, String> tags = tagsById(franchiseRepository.findVersions());
+        Map<String, SerializedResponse> entries = responseCache.getAll(tags, this::loadFranchises);
+        Map<String, SerializedResponse> ordered = new LinkedHashMap<>();
+        for (String franchiseId : tags.keySet()) {
+            SerializedResponse entry = entries.get(franchiseId);
+            if (entry != null) {
+                ordered.put(franchiseId, entry);
+            }
         }
-        return FranchiseMapper.toResponse(franchise);
+        return toJsonArray(ordered);
     }
 
-    public BranchResponse addBranch(String franchiseId, CreateBranchRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        if (!isActive(franchise)) {
-            throw new BadRequestException("Cannot add branches to an inactive franchise");
+    public SerializedResponse getSerializedFranchises(FranchiseFields fields) {
+        if (fields.isAll()) {
+            return getSerializedFranchises();
         }
-        String name = normalizeName(request.name());
-        ensureNameIsPresent(name, "Branch name is required");
-        List<Branch> branches = ensureBranches(franchise);
-        boolean exists = branches.stream().anyMatch(branch -> branch.getName() != null && branch.getName().equalsIgnoreCase(name));
-        if (exists) {
-            throw new ConflictException("Branch with name '%s' already exists in franchise".formatted(name));
-        }
-        boolean active = request.active() == null || Boolean.TRUE.equals(request.active());
-        Branch branch = Branch.builder()
-                .id(UUID.randomUUID().toString())
-                .name(name)
-                .active(active)
-                .build();
-        branches.add(branch);
-        franchiseRepository.save(franchise);
-        return FranchiseMapper.toBranchResponse(branch);
+        List<Franchise> franchises = franchiseRepository.findAllIncluding(fields.projection());
+        if (fields.includesProducts()) {
+            loadProducts(franchises);
+        }
+        Map<String, SerializedResponse> entries = new LinkedHashMap<>();
+        franchises.forEach(franchise -> entries.put(franchise.getId(),
+                responseCache.write(new Versioned<>(franchise, tagOf(franchise)), fields)));
+        return toJsonArray(entries);
     }
 
-    public BranchResponse updateBranchName(String franchiseId, String branchId, UpdateBranchNameRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        Branch branch = getBranch(franchise, branchId);
-        String newName = normalizeName(request.name());
-        ensureNameIsPresent(newName, "Branch name is required");
-        boolean sameName = branch.getName() != null && branch.getName().equalsIgnoreCase(newName);
-        if (!sameName) {
-            boolean duplicate = ensureBranches(franchise).stream()
-                    .anyMatch(other -> !other.getId().equals(branchId) && other.getName() != null && other.getName().equalsIgnoreCase(newName));
-            if (duplicate) {
-                throw new ConflictException("Branch with name '%s' already exists in franchise".formatted(newName));
+    /**
+     * Tag of the full franchise list, computed from ids and versions only.
+     */
+    public String getFranchisesTag() {
+        return listTag(tagsById(franchiseRepository.findVersions()));
+    }
+
+    public PageResponse<FranchiseResponse> getFranchisePage(String cursor, int limit) {
+        ensureValidLimit(limit);
+        // One extra element tells whether another page exists without issuing a count query.
+        Limit fetch = Limit.of(limit + 1);
+        List<Franchise> franchises = StringUtils.hasText(cursor)
+                ? franchiseRepository.findByIdGreaterThanOrderByIdAsc(decodeCursor(cursor), fetch)
+                : franchiseRepository.findAllByOrderByIdAsc(fetch);
+        loadProducts(franchises);
+        return toPage(franchises, limit, Franchise::getId, FranchiseMapper::toResponse);
+    }
+
+    public PageResponse<FranchiseSummaryResponse> getFranchiseSummaries(String cursor, Integer limit) {
+        String afterId = StringUtils.hasText(cursor) ? decodeCursor(cursor) : null;
+        if (limit == null) {
+            return new PageResponse<>(productStore.withProductCounts(franchiseRepository.findSummaries(afterId, null)), null);
+        }
+        ensureValidLimit(limit);
+        List<FranchiseSummaryResponse> summaries = productStore.withProductCounts(franchiseRepository.findSummaries(afterId, limit + 1));
+        return toPage(summaries, limit, FranchiseSummaryResponse::id, Function.identity());
+    }
+
+    public FranchiseSummaryResponse getFranchiseSummary(String franchiseId) {
+        return franchiseRepository.findSummaryById(franchiseId)
+                .map(summary -> productStore.withProductCounts(List.of(summary)).get(0))
+                .orElseThrow(() -> new ResourceNotFoundException("Franchise with id '%s' not found".formatted(franchiseId)));
+    }
+
+    public FranchiseResponse updateFranchiseStatus(String franchiseId, UpdateFranchiseStatusRequest request) {
+        return updateFranchiseStatus(franchiseId, request, null).body();
+    }
+
+    public Versioned<FranchiseResponse> updateFranchiseStatus(String franchiseId, UpdateFranchiseStatusRequest request, String expectedTag) {
+        return evictAfter(franchiseId, () -> retryExecutor.execute("updateFranchiseStatus", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            boolean currentActive = isActive(franchise);
+            boolean requested = Boolean.TRUE.equals(request.active());
+            if (currentActive != requested) {
+                franchise.setActive(requested);
+                franchiseRepository.save(franchise);
             }
-            branch.setName(newName);
+            return toVersionedResponse(franchise);
+        }));
+    }
+
+    public BranchResponse addBranch(String franchiseId, CreateBranchRequest request) {
+        return evictAfter(franchiseId, () -> retryExecutor.execute("addBranch", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            if (!isActive(franchise)) {
+                throw new BadRequestException("Cannot add branches to an inactive franchise");
+            }
+            String name = normalizeName(request.name());
+            ensureNameIsPresent(name, "Branch name is required");
+            if (franchise.findBranchByName(name).isPresent()) {
+                throw new ConflictException("Branch with name '%s' already exists in franchise".formatted(name));
+            }
+            boolean active = request.active() == null || Boolean.TRUE.equals(request.active());
+            Branch branch = Branch.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .active(active)
+                    .build();
+            franchise.addBranch(branch);
             franchiseRepository.save(franchise);
-        }
-        return FranchiseMapper.toBranchResponse(branch);
+            return FranchiseMapper.toBranchResponse(branch);
+        }));
+    }
+
+    public BranchResponse updateBranchName(String franchiseId, String branchId, UpdateBranchNameRequest request) {
+        return updateBranchName(franchiseId, branchId, request, null);
+    }
+
+    /**
+     * @param expectedTag tag of the franchise from {@code If-Match}, or {@code null} to update unconditionally
+     */
+    public BranchResponse updateBranchName(String franchiseId, String branchId, UpdateBranchNameRequest request, String expectedTag) {
+        return evictAfter(franchiseId, () -> retryExecutor.execute("updateBranchName", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            Branch branch = getBranch(franchise, branchId);
+            String newName = normalizeName(request.name());
+            ensureNameIsPresent(newName, "Branch name is required");
+            boolean sameName = branch.getName() != null && branch.getName().equalsIgnoreCase(newName);
+            if (!sameName) {
+                boolean duplicate = franchise.findBranchByName(newName)
+                        .filter(other -> !other.getId().equals(branchId))
+                        .isPresent();
+                if (duplicate) {
+                    throw new ConflictException("Branch with name '%s' already exists in franchise".formatted(newName));
+                }
+                franchise.renameBranch(branch, newName);
+                franchiseRepository.save(franchise);
+            }
+            return toBranchResponse(franchise, branch);
+        }));
     }
 
     public BranchResponse updateBranchStatus(String franchiseId, String branchId, UpdateBranchStatusRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        Branch branch = getBranch(franchise, branchId);
-        boolean requestedStatus = Boolean.TRUE.equals(request.active());
-        if (branch.isActive() != requestedStatus) {
-            branch.setActive(requestedStatus);
-            franchiseRepository.save(franchise);
-        }
-        return FranchiseMapper.toBranchResponse(branch);
+        return updateBranchStatus(franchiseId, branchId, request, null);
+    }
+
+    public BranchResponse updateBranchStatus(String franchiseId, String branchId, UpdateBranchStatusRequest request, String expectedTag) {
+        return evictAfter(franchiseId, () -> retryExecutor.execute("updateBranchStatus", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            Branch branch = getBranch(franchise, branchId);
+            boolean requestedStatus = Boolean.TRUE.equals(request.active());
+            if (branch.isActive() != requestedStatus) {
+                branch.setActive(requestedStatus);
+                franchiseRepository.save(franchise);
+            }
+            return toBranchResponse(franchise, branch);
+        }));
     }
 
     public ProductResponse addProduct(String franchiseId, String branchId, CreateProductRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        if (!isActive(franchise)) {
-            throw new BadRequestException("Cannot add products to an inactive franchise");
-        }
-        Branch branch = getBranch(franchise, branchId);
-        if (!branch.isActive()) {
-            throw new BadRequestException("Cannot add products to an inactive branch");
-        }
-        String name = normalizeName(request.name());
-        ensureNameIsPresent(name, "Product name is required");
-        int stock = ensureNonNegativeStock(request.stock());
-        List<Product> products = ensureProducts(branch);
-        boolean exists = products.stream().anyMatch(product -> product.getName() != null && product.getName().equalsIgnoreCase(name));
-        if (exists) {
-            throw new ConflictException("Product with name '%s' already exists in branch".formatted(name));
-        }
-        Product product = Product.builder()
-                .id(UUID.randomUUID().toString())
-                .name(name)
-                .stock(stock)
-                .build();
-        products.add(product);
-        franchiseRepository.save(franchise);
-        return FranchiseMapper.toProductResponse(product);
+        return evictAfter(franchiseId, () -> retryExecutor.execute("addProduct", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            if (!isActive(franchise)) {
+                throw new BadRequestException("Cannot add products to an inactive franchise");
+            }
+            Branch branch = getBranch(franchise, branchId);
+            if (!branch.isActive()) {
+                throw new BadRequestException("Cannot add products to an inactive branch");
+            }
+            String name = normalizeName(request.name());
+            ensureNameIsPresent(name, "Product name is required");
+            int stock = ensureNonNegativeStock(request.stock());
+            Product product = Product.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .stock(stock)
+                    .build();
+            try {
+                productStore.addProduct(franchise, branch, product);
+            } catch (DuplicateKeyException ex) {
+                throw duplicateProductName(name);
+            }
+            return FranchiseMapper.toProductResponse(product);
+        }));
     }
 
     public void deleteProduct(String franchiseId, String branchId, String productId) {
-        Franchise franchise = getFranchise(franchiseId);
-        Branch branch = getBranch(franchise, branchId);
-        List<Product> products = ensureProducts(branch);
-        boolean removed = products.removeIf(product -> product.getId().equals(productId));
-        if (!removed) {
-            throw new ResourceNotFoundException("Product with id '%s' not found".formatted(productId));
-        }
-        franchiseRepository.save(franchise);
+        deleteProduct(franchiseId, branchId, productId, null);
+    }
+
+    public void deleteProduct(String franchiseId, String branchId, String productId, String expectedTag) {
+        evictAfter(franchiseId, () -> retryExecutor.run("deleteProduct", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            Branch branch = getBranch(franchise, branchId);
+            if (!productStore.removeProduct(franchise, branch, productId)) {
+                throw new ResourceNotFoundException("Product with id '%s' not found".formatted(productId));
+            }
+        }));
     }
 
     public ProductResponse updateProductStock(String franchiseId, String branchId, String productId, UpdateProductStockRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        Branch branch = getBranch(franchise, branchId);
-        Product product = getProduct(branch, productId);
+        return updateProductStock(franchiseId, branchId, productId, request, null);
+    }
+
+    /**
+     * With {@code expectedTag}, the franchise version it names is part of the atomic stock update, so any write
+     * since that tag fails it with a 412. Such writes skip the write-behind buffer, which is flushed first; a tag
+     * that still carried buffered stock therefore no longer matches.
+     */
+    public ProductResponse updateProductStock(String franchiseId, String branchId, String productId, UpdateProductStockRequest request,
+                                              String expectedTag) {
         int stock = ensureNonNegativeStock(request.stock());
-        product.setStock(stock);
-        franchiseRepository.save(franchise);
+        Optional<Product> product;
+        if (expectedTag != null) {
+            product = evictAfter(franchiseId, () -> updateStockIfUnmodified(franchiseId, branchId, productId, stock, expectedTag));
+        } else {
+            product = evictAfter(franchiseId, () -> stockBuffer.isActive()
+                    ? stockBuffer.updateStock(franchiseId, branchId, productId, stock)
+                    : productStore.updateStock(franchiseId, branchId, productId, stock));
+        }
+        return FranchiseMapper.toProductResponse(product.orElseThrow(() -> productNotFound(franchiseId, branchId, productId)));
+    }
+
+    public ProductResponse adjustProductStock(String franchiseId, String branchId, String productId, AdjustProductStockRequest request) {
+        if (request.delta() == null) {
+            throw new BadRequestException("Stock delta is required");
+        }
+        int delta = request.delta();
+        Product product = evictAfter(franchiseId, () -> stockBuffer.isActive()
+                        ? stockBuffer.adjustStock(franchiseId, branchId, productId, delta)
+                        : productStore.adjustStock(franchiseId, branchId, productId, delta))
+                .orElseThrow(() -> insufficientStock(franchiseId, branchId, productId, delta));
         return FranchiseMapper.toProductResponse(product);
     }
 
-    public ProductResponse updateProductName(String franchiseId, String branchId, String productId, UpdateProductNameRequest request) {
-        Franchise franchise = getFranchise(franchiseId);
-        Branch branch = getBranch(franchise, branchId);
-        Product product = getProduct(branch, productId);
-        String newName = normalizeName(request.name());
-        ensureNameIsPresent(newName, "Product name is required");
-        boolean sameName = product.getName() != null && product.getName().equalsIgnoreCase(newName);
-        if (!sameName) {
-            boolean duplicate = ensureProducts(branch).stream()
-                    .anyMatch(other -> !other.getId().equals(productId) && other.getName() != null && other.getName().equalsIgnoreCase(newName));
-            if (duplicate) {
-                throw new ConflictException("Product with name '%s' already exists in branch".formatted(newName));
+    public BulkStockUpdateResponse bulkUpdateStock(BulkStockUpdateRequest request) {
+        if (stockBuffer.isActive()) {
+            // Batches validate against stored stock, so buffered single-product writes go first.
+            stockBuffer.flush();
+        }
+        List<BulkStockUpdateItem> items = request.items();
+        BulkStockUpdateResult[] results = new BulkStockUpdateResult[items.size()];
+        Map<String, List<Integer>> indexesByFranchise = new LinkedHashMap<>();
+        for (int index = 0; index < items.size(); index++) {
+            BulkStockUpdateItem item = items.get(index);
+            String error = validateBulkItem(item);
+            if (error != null) {
+                results[index] = bulkResult(index, item, BulkStockUpdateStatus.INVALID, null, error);
+                continue;
             }
-            product.setName(newName);
-            franchiseRepository.save(franchise);
+            indexesByFranchise.computeIfAbsent(item.franchiseId(), key -> new ArrayList<>()).add(index);
         }
-        return FranchiseMapper.toProductResponse(product);
+        Map<String, Franchise> snapshots = indexesByFranchise.isEmpty()
+                ? Map.of()
+                : productStore.findStockSnapshots(indexesByFranchise.keySet()).stream()
+                        .collect(Collectors.toMap(Franchise::getId, Function.identity()));
+        indexesByFranchise.forEach((franchiseId, indexes) ->
+                applyBulkGroup(franchiseId, snapshots.get(franchiseId), indexes, items, results));
+
+        List<BulkStockUpdateResult> report = Arrays.asList(results);
+        int updated = (int) report.stream().filter(result -> result.status() == BulkStockUpdateStatus.UPDATED).count();
+        return new BulkStockUpdateResponse(report.size(), updated, report.size() - updated, report);
+    }
+
+    public ProductResponse updateProductName(String franchiseId, String branchId, String productId, UpdateProductNameRequest request) {
+        return updateProductName(franchiseId, branchId, productId, request, null);
+    }
+
+    public ProductResponse updateProductName(String franchiseId, String branchId, String productId, UpdateProductNameRequest request,
+                                             String expectedTag) {
+        return evictAfter(franchiseId, () -> retryExecutor.execute("updateProductName", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            Branch branch = getBranch(franchise, branchId);
+            Product product = getProduct(franchise, branch, productId);
+            String newName = normalizeName(request.name());
+            ensureNameIsPresent(newName, "Product name is required");
+            boolean sameName = product.getName() != null && product.getName().equalsIgnoreCase(newName);
+            if (!sameName) {
+                try {
+                    productStore.renameProduct(franchise, branch, product, newName);
+                } catch (DuplicateKeyException ex) {
+                    throw duplicateProductName(newName);
+                }
+            }
+            return FranchiseMapper.toProductResponse(product);
+        }));
     }
 
     public void deleteBranch(String franchiseId, String branchId) {
-        Franchise franchise = getFranchise(franchiseId);
-        List<Branch> branches = ensureBranches(franchise);
-        boolean removed = branches.removeIf(branch -> branchId.equals(branch.getId()));
-        if (!removed) {
-            throw new ResourceNotFoundException("Branch with id '%s' not found in franchise".formatted(branchId));
-        }
-        franchiseRepository.save(franchise);
+        deleteBranch(franchiseId, branchId, null);
+    }
+
+    public void deleteBranch(String franchiseId, String branchId, String expectedTag) {
+        evictAfter(franchiseId, () -> retryExecutor.run("deleteBranch", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            if (!franchise.removeBranch(branchId)) {
+                throw new ResourceNotFoundException("Branch with id '%s' not found in franchise".formatted(branchId));
+            }
+            franchiseRepository.save(franchise);
+            productStore.removeBranchProducts(franchiseId, branchId);
+        }));
     }
 
     public void deleteFranchise(String franchiseId) {
-        Franchise franchise = getFranchise(franchiseId);
-        franchiseRepository.delete(franchise);
+        deleteFranchise(franchiseId, null);
+    }
+
+    public void deleteFranchise(String franchiseId, String expectedTag) {
+        evictAfter(franchiseId, () -> retryExecutor.run("deleteFranchise", () -> {
+            Franchise franchise = getFranchise(franchiseId);
+            ensureTag(franchise, expectedTag);
+            franchiseRepository.delete(franchise);
+            productStore.removeFranchiseProducts(franchiseId);
+        }));
     }
 
     public List<TopProductPerBranchResponse> getTopProductPerBranch(String franchiseId) {
-        Franchise franchise = getFranchise(franchiseId);
-        if (!isActive(franchise)) {
-            return List.of();
-        }
-        return ensureBranches(franchise).stream()
-                .filter(Branch::isActive)
-                .map(branch -> {
-                    Optional<Product> topProduct = ensureProducts(branch).stream()
-                            .max(Comparator.comparingInt(Product::getStock));
-                    return topProduct.map(product -> new TopProductPerBranchResponse(
-                            branch.getId(),
-                            branch.getName(),
-                            FranchiseMapper.toProductResponse(product)
-                    ));
-                })
-                .flatMap(Optional::stream)
-                .toList();
+        List<TopProductPerBranchResponse> topProducts = productStore.findTopProductPerBranch(franchiseId);
+        if (topProducts.isEmpty() && !franchiseRepository.existsById(franchiseId)) {
+            throw new ResourceNotFoundException("Franchise with id '%s' not found".formatted(franchiseId));
+        }
+        return topProducts;
+    }
+
+    /**
+     * Products of every franchise whose name starts with {@code query}, ignoring case, ordered by name. Stock
+     * is read as stored, so writes still held by the stock buffer show after its next flush.
+     */
+    public PageResponse<ProductSearchResult> searchProducts(String query, String cursor, Integer limit) {
+        String prefix = normalizeName(query);
+        ensureNameIsPresent(prefix, "Search query is required");
+        if (prefix.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new BadRequestException("Search query must have at most %d characters".formatted(MAX_SEARCH_QUERY_LENGTH));
+        }
+        int pageSize = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        ensureValidLimit(pageSize);
+        String afterName = null;
+        String afterProductId = null;
+        if (StringUtils.hasText(cursor)) {
+            String position = decodeCursor(cursor);
+            int separator = position.indexOf(SEARCH_CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            afterName = position.substring(0, separator);
+            afterProductId = position.substring(separator + 1);
+        }
+        List<ProductSearchResult> results = productStore.searchProducts(prefix, afterName, afterProductId, pageSize + 1);
+        return toPage(results, pageSize, result -> result.productName() + SEARCH_CURSOR_SEPARATOR + result.productId(), Function.identity());
+    }
+
+    private void applyBulkGroup(String franchiseId,
+                                Franchise snapshot,
+                                List<Integer> indexes,
+                                List<BulkStockUpdateItem> items,
+                                BulkStockUpdateResult[] results) {
+        if (snapshot == null) {
+            indexes.forEach(index -> results[index] = bulkResult(index, items.get(index), BulkStockUpdateStatus.NOT_FOUND, null,
+                    "Franchise with id '%s' not found".formatted(franchiseId)));
+            return;
+        }
+        Set<String> branchIds = new HashSet<>();
+        Map<String, Integer> stocks = new HashMap<>();
+        for (Branch branch : ensureBranches(snapshot)) {
+            branchIds.add(branch.getId());
+            ensureProducts(branch).forEach(product -> stocks.put(stockKey(branch.getId(), product.getId()), product.getStock()));
+        }
+
+        // Items for the same product are coalesced into one write so the unordered bulk stays deterministic.
+        Map<String, PendingStockWrite> pending = new LinkedHashMap<>();
+        for (int index : indexes) {
+            BulkStockUpdateItem item = items.get(index);
+            String key = stockKey(item.branchId(), item.productId());
+            Integer current = stocks.get(key);
+            if (current == null) {
+                String message = branchIds.contains(item.branchId())
+                        ? "Product with id '%s' not found".formatted(item.productId())
+                        : "Branch with id '%s' not found".formatted(item.branchId());
+                results[index] = bulkResult(index, item, BulkStockUpdateStatus.NOT_FOUND, null, message);
+                continue;
+            }
+            int next;
+            try {
+                next = item.stock() != null ? item.stock() : Math.addExact(current, item.delta());
+            } catch (ArithmeticException ex) {
+                results[index] = bulkResult(index, item, BulkStockUpdateStatus.INVALID, current,
+                        "Stock adjustment of %d would overflow the product stock".formatted(item.delta()));
+                continue;
+            }
+            if (next < 0) {
+                results[index] = bulkResult(index, item, BulkStockUpdateStatus.INSUFFICIENT_STOCK, current,
+                        "Stock adjustment of %d would leave the product with negative stock".formatted(item.delta()));
+                continue;
+            }
+            stocks.put(key, next);
+            pending.computeIfAbsent(key, ignored -> new PendingStockWrite(item.branchId(), item.productId()))
+                    .accept(index, item, next);
+        }
+
+        List<PendingStockWrite> grouped = List.copyOf(pending.values());
+        List<StockWrite> writes = grouped.stream().map(PendingStockWrite::toStockWrite).toList();
+        List<StockWriteResult> applied = evictAfter(franchiseId, () -> productStore.applyStockWrites(franchiseId, writes));
+        // Every product is reported from its own outcome, so a retry of the failed items never repeats a landed delta.
+        for (int position = 0; position < grouped.size(); position++) {
+            PendingStockWrite write = grouped.get(position);
+            StockWriteResult outcome = applied.get(position);
+            for (int index : write.indexes) {
+                BulkStockUpdateItem item = items.get(index);
+                if (outcome.applied()) {
+                    results[index] = bulkResult(index, item, BulkStockUpdateStatus.UPDATED, outcome.stock(), null);
+                } else if (outcome.stock() == null) {
+                    results[index] = bulkResult(index, item, BulkStockUpdateStatus.NOT_FOUND, null,
+                            "Product with id '%s' not found".formatted(item.productId()));
+                } else {
+                    results[index] = bulkResult(index, item, BulkStockUpdateStatus.CONFLICT, outcome.stock(),
+                            "Stock changed while applying the batch; this product was not updated, re-read stock before retrying");
+                }
+            }
+        }
+    }
+
+    private String validateBulkItem(BulkStockUpdateItem item) {
+        if (item == null) {
+            return "Item is required";
+        }
+        if (!StringUtils.hasText(item.franchiseId()) || !StringUtils.hasText(item.branchId()) || !StringUtils.hasText(item.productId())) {
+            return "franchiseId, branchId and productId are required";
+        }
+        if (item.stock() != null && item.delta() != null) {
+            return "Provide either stock or delta, not both";
+        }
+        if (item.stock() == null && item.delta() == null) {
+            return "Either stock or delta is required";
+        }
+        if (item.stock() != null) {
+            try {
+                ensureNonNegativeStock(item.stock());
+            } catch (BadRequestException ex) {
+                return ex.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private BulkStockUpdateResult bulkResult(int index, BulkStockUpdateItem item, BulkStockUpdateStatus status, Integer stock, String message) {
+        if (item == null) {
+            return new BulkStockUpdateResult(index, null, null, null, status, stock, message);
+        }
+        return new BulkStockUpdateResult(index, item.franchiseId(), item.branchId(), item.productId(), status, stock, message);
+    }
+
+    private String stockKey(String branchId, String productId) {
+        return branchId + '/' + productId;
+    }
+
+    private void ensureValidLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Limit must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+    }
+
+    private <T, R> PageResponse<R> toPage(List<T> rows, int limit, Function<T, String> idExtractor, Function<T, R> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<T> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? encodeCursor(idExtractor.apply(page.get(page.size() - 1))) : null;
+        return new PageResponse<>(page.stream().map(mapper).toList(), nextCursor);
+    }
+
+    private String encodeCursor(String franchiseId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(franchiseId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private <T> T evictAfter(String franchiseId, Supplier<T> write) {
+        try {
+            return write.get();
+        } finally {
+            responseCache.evict(franchiseId);
+        }
+    }
+
+    private void evictAfter(String franchiseId, Runnable write) {
+        try {
+            write.run();
+        } finally {
+            responseCache.evict(franchiseId);
+        }
     }
 
     private Franchise getFranchise(String franchiseId) {
@@ -249,20 +666,158 @@ public class FranchiseService {
                 .orElseThrow(() -> new ResourceNotFoundException("Franchise with id '%s' not found".formatted(franchiseId)));
     }
 
+    private ConflictException duplicateFranchiseName(String name) {
+        return new ConflictException("Franchise with name '%s' already exists".formatted(name));
+    }
+
+    private ConflictException duplicateProductName(String name) {
+        return new ConflictException("Product with name '%s' already exists in branch".formatted(name));
+    }
+
+    private Versioned<FranchiseResponse> toVersionedResponse(Franchise franchise) {
+        loadProducts(franchise);
+        return new Versioned<>(FranchiseMapper.toResponse(franchise), tagOf(franchise));
+    }
+
+    /**
+     * Checked against the freshly loaded document; the versioned save that follows fails and is retried
+     * if another write lands in between, so the retry re-runs this check against the new version. Product
+     * writes in {@code collection} storage are not saves of the franchise; the store makes them conditional
+     * on the product version instead and fails them the same way.
+     */
+    private void ensureTag(Franchise franchise, String expectedTag) {
+        if (expectedTag != null && !expectedTag.equals(tagOf(franchise))) {
+            throw modifiedFranchise(franchise.getId());
+        }
+    }
+
+    private Optional<Product> updateStockIfUnmodified(String franchiseId, String branchId, String productId, int stock, String expectedTag) {
+        if (stockBuffer.isActive()) {
+            stockBuffer.flush();
+        }
+        long expectedVersion;
+        try {
+            expectedVersion = Long.parseLong(expectedTag);
+        } catch (NumberFormatException ex) {
+            throw modifiedFranchise(franchiseId);
+        }
+        try {
+            return productStore.updateStock(franchiseId, branchId, productId, stock, expectedVersion);
+        } catch (OptimisticLockingFailureException ex) {
+            throw modifiedFranchise(franchiseId);
+        }
+    }
+
+    private PreconditionFailedException modifiedFranchise(String franchiseId) {
+        return new PreconditionFailedException("Franchise with id '%s' was modified; reload it and retry".formatted(franchiseId));
+    }
+
+    private String tagOf(Franchise franchise) {
+        return tagOf(franchise.getId(), franchise.getVersion());
+    }
+
+    /**
+     * The version, plus the revision of stock still waiting in the write-behind buffer, if any.
+     */
+    private String tagOf(String franchiseId, Long version) {
+        String tag = String.valueOf(version == null ? 0L : version);
+        long buffered = stockBuffer.revision(franchiseId);
+        return buffered == 0 ? tag : tag + "." + buffered;
+    }
+
+    /**
+     * Fills products for a response, with stock still waiting in the write-behind buffer applied on top.
+     */
+    private void loadProducts(Collection<Franchise> franchises) {
+        productStore.loadProducts(franchises);
+        stockBuffer.overlay(franchises);
+    }
+
+    private void loadProducts(Franchise franchise) {
+        loadProducts(List.of(franchise));
+    }
+
+    private Versioned<Franchise> withProducts(Franchise franchise) {
+        loadProducts(franchise);
+        return new Versioned<>(franchise, tagOf(franchise));
+    }
+
+    private Map<String, Versioned<Franchise>> loadFranchises(Set<String> franchiseIds) {
+        List<Franchise> franchises = new ArrayList<>();
+        franchiseRepository.findAllById(franchiseIds).forEach(franchises::add);
+        loadProducts(franchises);
+        Map<String, Versioned<Franchise>> loaded = new HashMap<>();
+        franchises.forEach(franchise -> loaded.put(franchise.getId(), new Versioned<>(franchise, tagOf(franchise))));
+        return loaded;
+    }
+
+    private static SerializedResponse toJsonArray(Map<String, SerializedResponse> entries) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        ByteArrayOutputStream json = new ByteArrayOutputStream(entries.values().stream().mapToInt(entry -> entry.json().length + 1).sum() + 2);
+        json.write('[');
+        entries.forEach((franchiseId, entry) -> {
+            if (!tags.isEmpty()) {
+                json.write(',');
+            }
+            json.writeBytes(entry.json());
+            tags.put(franchiseId, entry.tag());
+        });
+        json.write(']');
+        return new SerializedResponse(listTag(tags), json.toByteArray(), null);
+    }
+
+    private Map<String, String> tagsById(List<Franchise> franchises) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        franchises.forEach(franchise -> tags.put(franchise.getId(), tagOf(franchise)));
+        return tags;
+    }
+
+    /**
+     * Digest of the ids and tags in list order; both callers read them sorted by id.
+     */
+    private static String listTag(Map<String, String> tagsById) {
+        MessageDigest digest = sha256();
+        tagsById.forEach((franchiseId, tag) -> digest.update((franchiseId + ':' + tag + '\n').getBytes(StandardCharsets.UTF_8)));
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private BranchResponse toBranchResponse(Franchise franchise, Branch branch) {
+        loadProducts(franchise);
+        return FranchiseMapper.toBranchResponse(branch);
+    }
+
     private Branch getBranch(Franchise franchise, String branchId) {
-        return ensureBranches(franchise).stream()
-                .filter(branch -> branch.getId().equals(branchId))
-                .findFirst()
+        return franchise.findBranch(branchId)
                 .orElseThrow(() -> new ResourceNotFoundException("Branch with id '%s' not found".formatted(branchId)));
     }
 
-    private Product getProduct(Branch branch, String productId) {
-        return ensureProducts(branch).stream()
-                .filter(product -> product.getId().equals(productId))
-                .findFirst()
+    private Product getProduct(Franchise franchise, Branch branch, String productId) {
+        return productStore.findProduct(franchise, branch, productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product with id '%s' not found".formatted(productId)));
     }
 
+    private ResourceNotFoundException productNotFound(String franchiseId, String branchId, String productId) {
+        // Targeted updates only report "no match"; load the aggregate to tell which level is missing.
+        Franchise franchise = getFranchise(franchiseId);
+        getProduct(franchise, getBranch(franchise, branchId), productId);
+        return new ResourceNotFoundException("Product with id '%s' not found".formatted(productId));
+    }
+
+    private BadRequestException insufficientStock(String franchiseId, String branchId, String productId, int delta) {
+        Franchise franchise = getFranchise(franchiseId);
+        Product product = getProduct(franchise, getBranch(franchise, branchId), productId);
+        return new BadRequestException("Stock adjustment of %d would leave product '%s' with negative stock (current: %d)"
+                .formatted(delta, product.getName(), product.getStock()));
+    }
+
     private List<Branch> ensureBranches(Franchise franchise) {
         if (franchise.getBranches() == null) {
             franchise.setBranches(new ArrayList<>());
@@ -277,30 +832,32 @@ public class FranchiseService {
         return branch.getProducts();
     }
 
-    private boolean isActive(Franchise franchise) {
-        return franchise.getActive() == null || Boolean.TRUE.equals(franchise.getActive());
-    }
+    private static final class PendingStockWrite {
 
-    private String normalizeName(String name) {
-        if (name == null) {
-            return null;
-        }
-        return StringUtils.trimWhitespace(name);
-    }
+        private final String branchId;
+        private final String productId;
+        private final List<Integer> indexes = new ArrayList<>();
+        private boolean relative = true;
+        private int value;
 
-    private void ensureNameIsPresent(String name, String message) {
-        if (!StringUtils.hasText(name)) {
-            throw new BadRequestException(message);
+        private PendingStockWrite(String branchId, String productId) {
+            this.branchId = branchId;
+            this.productId = productId;
         }
-    }
 
-    private int ensureNonNegativeStock(Integer stock) {
-        if (stock == null) {
-            throw new BadRequestException("Stock value is required");
+        private void accept(int index, BulkStockUpdateItem item, int resultingStock) {
+            indexes.add(index);
+            if (item.stock() != null || !relative) {
+                // Once an absolute value is part of the batch the whole chain collapses into a single $set.
+                relative = false;
+                value = resultingStock;
+            } else {
+                value += item.delta();
+            }
         }
-        if (stock < 0) {
-            throw new BadRequestException("Stock must be greater than or equal to 0");
+
+        private StockWrite toStockWrite() {
+            return new StockWrite(branchId, productId, value, relative);
         }
-        return stock;
     }
 }
@@ -0,0 +1,284 @@
+package com.franchise.api.service;
+
+import com.franchise.api.config.FranchiseIdempotencyProperties;
+import com.franchise.api.domain.IdempotencyRecord;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.exception.ConflictException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Claims idempotency keys in the {@code idempotency_keys} collection and keeps completed responses, with
+ * recent ones also held in memory. A repeat on this instance waits on the first execution's future; a repeat
+ * of a key claimed by another instance polls the stored record. Either way it gives up with a 409 after
+ * {@code wait-timeout}. The claiming instance renews the {@code lease} of its running executions, so a claim
+ * is only taken over once its instance stopped renewing it.
+ */
+@Service
+@Slf4j
+public class IdempotencyService implements SmartLifecycle {
+
+    private static final long POLL_INTERVAL_MS = 50;
+    // Stops after the web server, so executions still running during a graceful shutdown keep their lease.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final MongoTemplate mongoTemplate;
+    private final FranchiseIdempotencyProperties settings;
+    private final Cache<String, IdempotencyRecord> completed;
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    // Keys claimed by this instance whose execution is still running.
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+
+    public IdempotencyService(MongoTemplate mongoTemplate, FranchiseIdempotencyProperties settings, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = settings;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(settings.getCacheMaximumSize())
+                .expireAfterWrite(settings.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+    }
+
+    @Override
+    public void start() {
+        long interval = Math.max(1, settings.getLease().toMillis() / 3);
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "idempotency-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::renewLeases, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Claims {@code key} for the caller, or returns the response of its earlier execution. When empty, the
+     * caller must execute the request and then call {@link #complete} or {@link #abandon}.
+     *
+     * @throws BadRequestException when the key was used for a request with a different fingerprint
+     * @throws ConflictException   when the first execution is still running after the wait timeout
+     */
+    public Optional<IdempotencyRecord> begin(String key, String fingerprint) {
+        long deadline = System.nanoTime() + settings.getWaitTimeout().toNanos();
+        while (true) {
+            IdempotencyRecord done = completed.getIfPresent(key);
+            if (done != null) {
+                return Optional.of(matching(done, fingerprint));
+            }
+            CompletableFuture<IdempotencyRecord> execution = new CompletableFuture<>();
+            CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(key, execution);
+            if (running != null) {
+                IdempotencyRecord result = await(running, deadline);
+                if (result != null) {
+                    return Optional.of(matching(result, fingerprint));
+                }
+                // The first execution was abandoned; compete for the key again.
+                continue;
+            }
+            if (claim(key, fingerprint)) {
+                return Optional.empty();
+            }
+            // Claimed before, possibly by another instance; this request waits on the stored record instead.
+            try {
+                IdempotencyRecord stored = awaitStored(key, deadline);
+                execution.complete(stored);
+                if (stored != null) {
+                    return Optional.of(matching(stored, fingerprint));
+                }
+            } finally {
+                inFlight.remove(key, execution);
+                execution.complete(null);
+            }
+        }
+    }
+
+    public void complete(String key, String fingerprint, int status, Map<String, String> headers, byte[] body) {
+        Instant now = Instant.now();
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .id(key)
+                .fingerprint(fingerprint)
+                .completed(true)
+                .startedAt(now)
+                .expiresAt(now.plus(settings.getTtl()))
+                .status(status)
+                .headers(headers)
+                .body(body)
+                .build();
+        try {
+            mongoTemplate.save(record);
+        } catch (DataAccessException ex) {
+            log.warn("Could not store the response for an idempotency key; only this instance will replay it: {}", ex.getMessage());
+        }
+        completed.put(key, record);
+        finish(key, record);
+    }
+
+    /**
+     * Releases the key after a failed execution, so a retry runs the request again.
+     */
+    public void abandon(String key) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("id").is(key).and("completed").is(false)), IdempotencyRecord.class);
+        } catch (DataAccessException ex) {
+            log.warn("Could not release an idempotency key; it is held until its lease expires: {}", ex.getMessage());
+        }
+        finish(key, null);
+    }
+
+    /**
+     * Extends the lease of every execution still running on this instance, in one update.
+     */
+    private void renewLeases() {
+        if (held.isEmpty()) {
+            return;
+        }
+        List<String> keys = List.copyOf(held);
+        try {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(keys).and("completed").is(false)),
+                    Update.update("leaseExpiresAt", leaseEnd()), IdempotencyRecord.class);
+        } catch (RuntimeException ex) {
+            log.warn("Could not renew {} idempotency leases: {}", keys.size(), ex.getMessage());
+        }
+    }
+
+    private boolean claim(String key, String fingerprint) {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.insert(IdempotencyRecord.builder()
+                    .id(key)
+                    .fingerprint(fingerprint)
+                    .completed(false)
+                    .startedAt(now)
+                    .leaseExpiresAt(leaseEnd())
+                    .expiresAt(now.plus(settings.getTtl()))
+                    .build());
+            held.add(key);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    private Instant leaseEnd() {
+        // Mongo keeps milliseconds, so the stored value can be matched as a token when taking a claim over.
+        return Instant.now().plus(settings.getLease()).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Polls the stored record until it completes; null when it is gone or its lease expired and was released.
+     */
+    private IdempotencyRecord awaitStored(String key, long deadline) {
+        while (true) {
+            IdempotencyRecord stored = mongoTemplate.findById(key, IdempotencyRecord.class);
+            if (stored == null) {
+                return null;
+            }
+            if (stored.isCompleted()) {
+                completed.put(key, stored);
+                return stored;
+            }
+            if (stored.getLeaseExpiresAt() == null || stored.getLeaseExpiresAt().isBefore(Instant.now())) {
+                // Only removes the claim as read: a renewal in between moves leaseExpiresAt and keeps it.
+                mongoTemplate.remove(Query.query(Criteria.where("id").is(key).and("completed").is(false)
+                        .and("startedAt").is(stored.getStartedAt())
+                        .and("leaseExpiresAt").is(stored.getLeaseExpiresAt())), IdempotencyRecord.class);
+                return null;
+            }
+            pause(deadline);
+        }
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running, long deadline) {
+        try {
+            return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw stillRunning();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        } catch (ExecutionException ex) {
+            return null;
+        }
+    }
+
+    private void pause(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw stillRunning();
+        }
+        try {
+            Thread.sleep(Math.min(POLL_INTERVAL_MS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw stillRunning();
+        }
+    }
+
+    private void finish(String key, IdempotencyRecord record) {
+        held.remove(key);
+        CompletableFuture<IdempotencyRecord> execution = inFlight.remove(key);
+        if (execution != null) {
+            execution.complete(record);
+        }
+    }
+
+    private IdempotencyRecord matching(IdempotencyRecord record, String fingerprint) {
+        if (!fingerprint.equals(record.getFingerprint())) {
+            throw new BadRequestException("Idempotency-Key was already used for a different request");
+        }
+        return record;
+    }
+
+    private ConflictException stillRunning() {
+        return new ConflictException("A request with this Idempotency-Key is still being processed; retry later");
+    }
+}
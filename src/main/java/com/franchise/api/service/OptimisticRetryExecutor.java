@@ -0,0 +1,91 @@
+package com.franchise.api.service;
+
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.exception.ConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs read-modify-write operations on versioned aggregates when a concurrent writer wins the race.
+ */
+@Component
+@Slf4j
+public class OptimisticRetryExecutor {
+
+    private static final String CONFLICT_MESSAGE = "Franchise was modified concurrently, please retry";
+
+    private final FranchisePersistenceProperties.Concurrency settings;
+    private final MeterRegistry meterRegistry;
+
+    public OptimisticRetryExecutor(FranchisePersistenceProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getConcurrency();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        int maxAttempts = Math.max(1, settings.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException ex) {
+                meterRegistry.counter("franchise.concurrency.conflicts", "operation", operation).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("franchise.concurrency.exhausted", "operation", operation).increment();
+                    log.warn("Giving up on {} after {} conflicting attempts", operation, attempt);
+                    throw new ConflictException(CONFLICT_MESSAGE);
+                }
+                meterRegistry.counter("franchise.concurrency.retries", "operation", operation).increment();
+                log.debug("Optimistic lock conflict on {} (attempt {}), retrying", operation, attempt);
+                pause(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Same policy and metrics for reactive pipelines; apply with {@code retryWhen} around a deferred read-modify-write.
+     */
+    public Retry reactiveRetry(String operation) {
+        int maxAttempts = Math.max(1, settings.getMaxAttempts());
+        return Retry.backoff(maxAttempts - 1, Duration.ofMillis(Math.max(1, settings.getInitialBackoffMs())))
+                .maxBackoff(Duration.ofMillis(Math.max(1, settings.getMaxBackoffMs())))
+                .filter(OptimisticLockingFailureException.class::isInstance)
+                .doBeforeRetry(signal -> {
+                    meterRegistry.counter("franchise.concurrency.conflicts", "operation", operation).increment();
+                    meterRegistry.counter("franchise.concurrency.retries", "operation", operation).increment();
+                })
+                .onRetryExhaustedThrow((spec, signal) -> {
+                    meterRegistry.counter("franchise.concurrency.conflicts", "operation", operation).increment();
+                    meterRegistry.counter("franchise.concurrency.exhausted", "operation", operation).increment();
+                    log.warn("Giving up on {} after {} conflicting attempts", operation, signal.totalRetries() + 1);
+                    return new ConflictException(CONFLICT_MESSAGE);
+                });
+    }
+
+    private void pause(int attempt) {
+        long ceiling = Math.min(settings.getMaxBackoffMs(), settings.getInitialBackoffMs() << Math.min(attempt - 1, 16));
+        if (ceiling <= 0) {
+            return;
+        }
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException(CONFLICT_MESSAGE);
+        }
+    }
+}
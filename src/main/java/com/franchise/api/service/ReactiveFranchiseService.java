@@ -0,0 +1,295 @@
+package com.franchise.api.service;
+
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.config.ProductStorageMode;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.AdjustProductStockRequest;
+import com.franchise.api.dto.BranchResponse;
+import com.franchise.api.dto.CreateBranchRequest;
+import com.franchise.api.dto.CreateFranchiseRequest;
+import com.franchise.api.dto.CreateProductRequest;
+import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.dto.UpdateBranchNameRequest;
+import com.franchise.api.dto.UpdateBranchStatusRequest;
+import com.franchise.api.dto.UpdateFranchiseNameRequest;
+import com.franchise.api.dto.UpdateFranchiseStatusRequest;
+import com.franchise.api.dto.UpdateProductNameRequest;
+import com.franchise.api.dto.UpdateProductStockRequest;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.exception.ConflictException;
+import com.franchise.api.exception.ResourceNotFoundException;
+import com.franchise.api.mapper.FranchiseMapper;
+import com.franchise.api.repository.ReactiveFranchiseRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static com.franchise.api.service.FranchiseRules.ensureNameIsPresent;
+import static com.franchise.api.service.FranchiseRules.ensureNonNegativeStock;
+import static com.franchise.api.service.FranchiseRules.isActive;
+import static com.franchise.api.service.FranchiseRules.normalizeName;
+
+/**
+ * Non-blocking counterpart of {@link FranchiseService} for the {@code reactive} profile. Business rules and
+ * error messages match the blocking service; every read-modify-write is re-subscribed on optimistic lock
+ * conflicts with the same retry policy. Writes do not evict {@link FranchiseResponseCache}: only the servlet
+ * API reads through it and the two never run in one application, while a servlet instance sharing the
+ * database revalidates its entries against the stored version, which every save here bumps.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFranchiseService {
+
+    private final ReactiveFranchiseRepository franchiseRepository;
+    private final OptimisticRetryExecutor retryExecutor;
+
+    public ReactiveFranchiseService(ReactiveFranchiseRepository franchiseRepository,
+                                    OptimisticRetryExecutor retryExecutor,
+                                    FranchisePersistenceProperties properties) {
+        if (properties.getProducts().getStorage() != ProductStorageMode.EMBEDDED) {
+            throw new IllegalStateException("The reactive franchise API only supports embedded product storage");
+        }
+        this.franchiseRepository = franchiseRepository;
+        this.retryExecutor = retryExecutor;
+    }
+
+    public Mono<FranchiseResponse> createFranchise(CreateFranchiseRequest request) {
+        return Mono.defer(() -> {
+            String name = normalizeName(request.name());
+            ensureNameIsPresent(name, "Franchise name is required");
+            Franchise franchise = Franchise.builder()
+                    .name(name)
+                    .active(request.active() == null || Boolean.TRUE.equals(request.active()))
+                    .build();
+            return franchiseRepository.insert(franchise)
+                    .map(FranchiseMapper::toResponse)
+                    .onErrorMap(DuplicateKeyException.class, ex -> duplicateFranchiseName(name));
+        });
+    }
+
+    public Flux<FranchiseResponse> getAllFranchises() {
+        return franchiseRepository.findAll().map(FranchiseMapper::toResponse);
+    }
+
+    public Mono<FranchiseResponse> getFranchiseById(String franchiseId) {
+        return getFranchise(franchiseId).map(FranchiseMapper::toResponse);
+    }
+
+    public Mono<FranchiseResponse> updateFranchiseName(String franchiseId, UpdateFranchiseNameRequest request) {
+        return mutate("updateFranchiseName", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            String newName = normalizeName(request.name());
+            ensureNameIsPresent(newName, "Franchise name is required");
+            boolean sameName = franchise.getName() != null && franchise.getName().equalsIgnoreCase(newName);
+            if (sameName) {
+                return Mono.just(FranchiseMapper.toResponse(franchise));
+            }
+            franchise.setName(newName);
+            return franchiseRepository.save(franchise)
+                    .map(FranchiseMapper::toResponse)
+                    .onErrorMap(DuplicateKeyException.class, ex -> duplicateFranchiseName(newName));
+        }));
+    }
+
+    public Mono<FranchiseResponse> updateFranchiseStatus(String franchiseId, UpdateFranchiseStatusRequest request) {
+        return mutate("updateFranchiseStatus", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            boolean requested = Boolean.TRUE.equals(request.active());
+            if (isActive(franchise) == requested) {
+                return Mono.just(FranchiseMapper.toResponse(franchise));
+            }
+            franchise.setActive(requested);
+            return franchiseRepository.save(franchise).map(FranchiseMapper::toResponse);
+        }));
+    }
+
+    public Mono<Void> deleteFranchise(String franchiseId) {
+        return mutate("deleteFranchise", () -> getFranchise(franchiseId).flatMap(franchiseRepository::delete));
+    }
+
+    public Mono<BranchResponse> addBranch(String franchiseId, CreateBranchRequest request) {
+        return mutate("addBranch", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            if (!isActive(franchise)) {
+                throw new BadRequestException("Cannot add branches to an inactive franchise");
+            }
+            String name = normalizeName(request.name());
+            ensureNameIsPresent(name, "Branch name is required");
+            if (franchise.findBranchByName(name).isPresent()) {
+                throw new ConflictException("Branch with name '%s' already exists in franchise".formatted(name));
+            }
+            Branch branch = Branch.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .active(request.active() == null || Boolean.TRUE.equals(request.active()))
+                    .build();
+            franchise.addBranch(branch);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toBranchResponse(branch));
+        }));
+    }
+
+    public Mono<BranchResponse> updateBranchName(String franchiseId, String branchId, UpdateBranchNameRequest request) {
+        return mutate("updateBranchName", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            Branch branch = getBranch(franchise, branchId);
+            String newName = normalizeName(request.name());
+            ensureNameIsPresent(newName, "Branch name is required");
+            boolean sameName = branch.getName() != null && branch.getName().equalsIgnoreCase(newName);
+            if (sameName) {
+                return Mono.just(FranchiseMapper.toBranchResponse(branch));
+            }
+            boolean duplicate = franchise.findBranchByName(newName)
+                    .filter(other -> !other.getId().equals(branchId))
+                    .isPresent();
+            if (duplicate) {
+                throw new ConflictException("Branch with name '%s' already exists in franchise".formatted(newName));
+            }
+            franchise.renameBranch(branch, newName);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toBranchResponse(branch));
+        }));
+    }
+
+    public Mono<BranchResponse> updateBranchStatus(String franchiseId, String branchId, UpdateBranchStatusRequest request) {
+        return mutate("updateBranchStatus", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            Branch branch = getBranch(franchise, branchId);
+            boolean requestedStatus = Boolean.TRUE.equals(request.active());
+            if (branch.isActive() == requestedStatus) {
+                return Mono.just(FranchiseMapper.toBranchResponse(branch));
+            }
+            branch.setActive(requestedStatus);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toBranchResponse(branch));
+        }));
+    }
+
+    public Mono<Void> deleteBranch(String franchiseId, String branchId) {
+        return mutate("deleteBranch", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            if (!franchise.removeBranch(branchId)) {
+                throw new ResourceNotFoundException("Branch with id '%s' not found in franchise".formatted(branchId));
+            }
+            return franchiseRepository.save(franchise).then();
+        }));
+    }
+
+    public Mono<ProductResponse> addProduct(String franchiseId, String branchId, CreateProductRequest request) {
+        return mutate("addProduct", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            if (!isActive(franchise)) {
+                throw new BadRequestException("Cannot add products to an inactive franchise");
+            }
+            Branch branch = getBranch(franchise, branchId);
+            if (!branch.isActive()) {
+                throw new BadRequestException("Cannot add products to an inactive branch");
+            }
+            String name = normalizeName(request.name());
+            ensureNameIsPresent(name, "Product name is required");
+            int stock = ensureNonNegativeStock(request.stock());
+            if (branch.findProductByName(name).isPresent()) {
+                throw new ConflictException("Product with name '%s' already exists in branch".formatted(name));
+            }
+            Product product = Product.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(name)
+                    .stock(stock)
+                    .build();
+            branch.addProduct(product);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toProductResponse(product));
+        }));
+    }
+
+    public Mono<ProductResponse> updateProductName(String franchiseId, String branchId, String productId, UpdateProductNameRequest request) {
+        return mutate("updateProductName", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            Branch branch = getBranch(franchise, branchId);
+            Product product = getProduct(branch, productId);
+            String newName = normalizeName(request.name());
+            ensureNameIsPresent(newName, "Product name is required");
+            boolean sameName = product.getName() != null && product.getName().equalsIgnoreCase(newName);
+            if (sameName) {
+                return Mono.just(FranchiseMapper.toProductResponse(product));
+            }
+            boolean duplicate = branch.findProductByName(newName)
+                    .filter(other -> !other.getId().equals(productId))
+                    .isPresent();
+            if (duplicate) {
+                throw new ConflictException("Product with name '%s' already exists in branch".formatted(newName));
+            }
+            branch.renameProduct(product, newName);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toProductResponse(product));
+        }));
+    }
+
+    public Mono<ProductResponse> updateProductStock(String franchiseId, String branchId, String productId, UpdateProductStockRequest request) {
+        return mutate("updateProductStock", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            int stock = ensureNonNegativeStock(request.stock());
+            Branch branch = getBranch(franchise, branchId);
+            Product product = getProduct(branch, productId);
+            branch.updateStock(product, stock);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toProductResponse(product));
+        }));
+    }
+
+    public Mono<ProductResponse> adjustProductStock(String franchiseId, String branchId, String productId, AdjustProductStockRequest request) {
+        return mutate("adjustProductStock", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            if (request.delta() == null) {
+                throw new BadRequestException("Stock delta is required");
+            }
+            int delta = request.delta();
+            Branch branch = getBranch(franchise, branchId);
+            Product product = getProduct(branch, productId);
+            int stock;
+            try {
+                stock = Math.addExact(product.getStock(), delta);
+            } catch (ArithmeticException ex) {
+                throw new BadRequestException("Stock adjustment of %d would overflow the product stock".formatted(delta));
+            }
+            if (stock < 0) {
+                throw new BadRequestException("Stock adjustment of %d would leave product '%s' with negative stock (current: %d)"
+                        .formatted(delta, product.getName(), product.getStock()));
+            }
+            branch.updateStock(product, stock);
+            return franchiseRepository.save(franchise).thenReturn(FranchiseMapper.toProductResponse(product));
+        }));
+    }
+
+    public Mono<Void> deleteProduct(String franchiseId, String branchId, String productId) {
+        return mutate("deleteProduct", () -> getFranchise(franchiseId).flatMap(franchise -> {
+            if (!getBranch(franchise, branchId).removeProduct(productId)) {
+                throw new ResourceNotFoundException("Product with id '%s' not found".formatted(productId));
+            }
+            return franchiseRepository.save(franchise).then();
+        }));
+    }
+
+    public Flux<TopProductPerBranchResponse> getTopProductPerBranch(String franchiseId) {
+        return getFranchise(franchiseId).flatMapIterable(franchise -> isActive(franchise)
+                ? FranchiseMapper.toTopProductResponses(franchise.getBranches())
+                : List.of());
+    }
+
+    private <T> Mono<T> mutate(String operation, Supplier<Mono<T>> action) {
+        return Mono.defer(action).retryWhen(retryExecutor.reactiveRetry(operation));
+    }
+
+    private Mono<Franchise> getFranchise(String franchiseId) {
+        return franchiseRepository.findById(franchiseId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Franchise with id '%s' not found".formatted(franchiseId))));
+    }
+
+    private Branch getBranch(Franchise franchise, String branchId) {
+        return franchise.findBranch(branchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Branch with id '%s' not found".formatted(branchId)));
+    }
+
+    private Product getProduct(Branch branch, String productId) {
+        return branch.findProduct(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product with id '%s' not found".formatted(productId)));
+    }
+
+    private ConflictException duplicateFranchiseName(String name) {
+        return new ConflictException("Franchise with name '%s' already exists".formatted(name));
+    }
+}
@@ -0,0 +1,8 @@
+package com.franchise.api.service;
+
+/**
+ * A response body already written as JSON, with its entity tag and, when large enough, a gzip copy
+ * ({@code null} otherwise). The arrays are shared between requests and must not be modified.
+ */
+public record SerializedResponse(String tag, byte[] json, byte[] gzip) {
+}
@@ -0,0 +1,334 @@
+package com.franchise.api.service;
+
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.repository.ProductStore;
+import com.franchise.api.repository.StockWrite;
+import com.franchise.api.repository.StockWriteResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind for single-product stock updates, enabled with {@code franchise.persistence.stock-buffer.enabled}.
+ * Updates are coalesced per product in memory and flushed through {@link ProductStore#applyStockWrites} every
+ * {@code flush-interval}, as soon as {@code max-pending} products are waiting, and once more on shutdown.
+ * <p>
+ * Each buffered product keeps the stock it had when it entered the buffer: a run of deltas is flushed as one
+ * guarded {@code $inc}, anything after an absolute value as one {@code $set}. Deltas are checked against the
+ * buffered stock, so a writer outside the buffer that lowers stock meanwhile can make the flushed increment
+ * miss its guard; that product's write is then dropped, counted and logged, and the stock Mongo reports back
+ * becomes its base, with anything buffered for it during the flush replayed on top.
+ * <p>
+ * Flushes are serialized with a {@link ReentrantLock} rather than a monitor: request threads flush before bulk
+ * updates and the lock is held across Mongo calls, which would pin virtual threads.
+ */
+@Component
+@Slf4j
+public class StockWriteBuffer implements SmartLifecycle {
+
+    // Stops after the web server has drained in-flight requests and before the Mongo client is closed.
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final ProductStore productStore;
+    private final FranchiseResponseCache responseCache;
+    private final FranchisePersistenceProperties.StockBuffer settings;
+    private final Timer flushTimer;
+    private final Counter dropped;
+    private final ConcurrentMap<StockKey, Pending> pending = new ConcurrentHashMap<>();
+    // Revision of the last buffered write per franchise, while it has writes that were not flushed.
+    private final ConcurrentMap<String, Long> revisions = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+
+    public StockWriteBuffer(ProductStore productStore,
+                            FranchiseResponseCache responseCache,
+                            FranchisePersistenceProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.productStore = productStore;
+        this.responseCache = responseCache;
+        this.settings = properties.getStockBuffer();
+        Gauge.builder("franchise.stock.buffer.pending", pending, Map::size)
+                .description("Products with stock writes waiting to be flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("franchise.stock.buffer.flush")
+                .description("Time spent writing buffered stock to Mongo")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("franchise.stock.buffer.dropped")
+                .description("Buffered stock writes that no longer matched their product when flushed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long interval = Math.max(1, settings.getFlushInterval().toMillis());
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stock-write-buffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(settings.getFlushInterval().toMillis() + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("{} buffered stock writes could not be flushed on shutdown", pending.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Whether stock writes should go through the buffer; false when disabled or shutting down.
+     */
+    public boolean isActive() {
+        return running;
+    }
+
+    /**
+     * Same contract as {@link ProductStore#updateStock}, answered with the buffered stock.
+     */
+    public Optional<Product> updateStock(String franchiseId, String branchId, String productId, int stock) {
+        return record(new StockKey(franchiseId, branchId, productId), stock, false);
+    }
+
+    /**
+     * Same contract as {@link ProductStore#adjustStock}: empty when the product does not exist or the delta
+     * would leave the buffered stock negative.
+     */
+    public Optional<Product> adjustStock(String franchiseId, String branchId, String productId, int delta) {
+        return record(new StockKey(franchiseId, branchId, productId), delta, true);
+    }
+
+    /**
+     * Replaces the stock of loaded products with their buffered value, so reads see writes not flushed yet.
+     */
+    public void overlay(Collection<Franchise> franchises) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (Franchise franchise : franchises) {
+            if (franchise == null || franchise.getBranches() == null || !revisions.containsKey(franchise.getId())) {
+                continue;
+            }
+            for (Branch branch : franchise.getBranches()) {
+                if (branch == null || branch.getProducts() == null) {
+                    continue;
+                }
+                for (Product product : branch.getProducts()) {
+                    Pending buffered = product == null ? null : pending.get(new StockKey(franchise.getId(), branch.getId(), product.getId()));
+                    if (buffered != null) {
+                        product.setStock(buffered.stock());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Revision of the franchise's buffered stock, or 0 when nothing is waiting; part of the entity tag so
+     * buffered writes change it before the flush bumps the version.
+     */
+    public long revision(String franchiseId) {
+        return revisions.getOrDefault(franchiseId, 0L);
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            flushTimer.record(() -> {
+                // Revisions are read before the writes so a write racing with the flush keeps its marker.
+                Map<String, Long> flushedRevisions = new HashMap<>(revisions);
+                Map<String, Map<StockKey, Pending>> byFranchise = new LinkedHashMap<>();
+                pending.forEach((key, buffered) ->
+                        byFranchise.computeIfAbsent(key.franchiseId(), ignored -> new HashMap<>()).put(key, buffered));
+                byFranchise.forEach((franchiseId, entries) -> flush(franchiseId, entries, flushedRevisions.get(franchiseId)));
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flush(String franchiseId, Map<StockKey, Pending> entries, Long revision) {
+        List<StockKey> keys = new ArrayList<>();
+        List<StockWrite> writes = new ArrayList<>();
+        entries.forEach((key, buffered) -> {
+            if (buffered.changed()) {
+                keys.add(key);
+                writes.add(buffered.toStockWrite(key));
+            } else {
+                pending.remove(key, buffered);
+            }
+        });
+        List<StockWriteResult> results;
+        try {
+            results = writes.isEmpty() ? List.of() : productStore.applyStockWrites(franchiseId, writes);
+        } catch (DataAccessException ex) {
+            log.warn("Could not flush {} buffered stock writes of franchise {}, retrying on the next flush: {}",
+                    writes.size(), franchiseId, ex.getMessage());
+            return;
+        }
+        for (int index = 0; index < keys.size(); index++) {
+            StockKey key = keys.get(index);
+            Pending flushed = entries.get(key);
+            StockWriteResult result = results.get(index);
+            if (result.applied()) {
+                if (!pending.remove(key, flushed)) {
+                    // Written to meanwhile: keep the newer value, now relative to what was just flushed.
+                    pending.computeIfPresent(key, (ignored, current) -> current.rebase(flushed.stock()));
+                }
+                continue;
+            }
+            dropped.increment();
+            log.warn("Dropped buffered stock write {} of franchise {}: stored stock is {}", writes.get(index), franchiseId, result.stock());
+            if (!pending.remove(key, flushed)) {
+                pending.computeIfPresent(key, (ignored, current) -> result.stock() == null ? null : current.replay(flushed, result.stock()));
+            }
+        }
+        if (revision != null) {
+            revisions.remove(franchiseId, revision);
+        }
+        responseCache.evict(franchiseId);
+    }
+
+    private Optional<Product> record(StockKey key, int value, boolean relative) {
+        while (true) {
+            Pending known = pending.get(key);
+            Pending current = known != null ? known : findStored(key).orElse(null);
+            if (current == null) {
+                return Optional.empty();
+            }
+            long revision = sequence.incrementAndGet();
+            Pending next = relative ? current.adjust(value, revision) : current.set(value, revision);
+            if (next == null) {
+                return Optional.empty();
+            }
+            boolean stored = known == null ? pending.putIfAbsent(key, next) == null : pending.replace(key, known, next);
+            if (stored) {
+                revisions.merge(key.franchiseId(), revision, Math::max);
+                flushIfFull();
+                return Optional.of(Product.builder().id(key.productId()).name(next.name()).stock(next.stock()).build());
+            }
+        }
+    }
+
+    private Optional<Pending> findStored(StockKey key) {
+        return productStore.findProductStock(key.franchiseId(), key.branchId(), key.productId())
+                .map(product -> new Pending(product.getName(), product.getStock(), product.getStock(), false, 0));
+    }
+
+    private void flushIfFull() {
+        if (running && pending.size() >= settings.getMaxPending() && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Stock buffer flush failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private record StockKey(String franchiseId, String branchId, String productId) {
+    }
+
+    /**
+     * Buffered state of one product: {@code base} is the stock known to be stored, {@code stock} the buffered
+     * value; {@code absolute} once any write set the value instead of adjusting it.
+     */
+    private record Pending(String name, int base, int stock, boolean absolute, long revision) {
+
+        Pending set(int value, long nextRevision) {
+            return new Pending(name, base, value, true, nextRevision);
+        }
+
+        Pending adjust(int delta, long nextRevision) {
+            long next = (long) stock + delta;
+            return next < 0 || next > Integer.MAX_VALUE ? null : new Pending(name, base, (int) next, absolute, nextRevision);
+        }
+
+        Pending rebase(int stored) {
+            return new Pending(name, stored, stock, absolute, revision);
+        }
+
+        /**
+         * What is left of this entry once {@code rejected}, an earlier state of it, failed to flush against
+         * {@code stored}: an absolute value stands, deltas buffered since are applied to the stored stock.
+         */
+        Pending replay(Pending rejected, int stored) {
+            if (absolute && !rejected.absolute) {
+                return new Pending(name, stored, stock, true, revision);
+            }
+            return new Pending(name, stored, stored, false, revision).adjust(stock - rejected.stock, revision);
+        }
+
+        boolean changed() {
+            return absolute || stock != base;
+        }
+
+        StockWrite toStockWrite(StockKey key) {
+            return absolute
+                    ? new StockWrite(key.branchId(), key.productId(), stock, false)
+                    : new StockWrite(key.branchId(), key.productId(), stock - base, true);
+        }
+    }
+}
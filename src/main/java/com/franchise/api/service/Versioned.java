@@ -0,0 +1,8 @@
+package com.franchise.api.service;
+
+/**
+ * A response together with the entity tag of the documents it was built from. The tag is the raw,
+ * unquoted value; for a single franchise it is the document {@code version}.
+ */
+public record Versioned<T>(T body, String tag) {
+}
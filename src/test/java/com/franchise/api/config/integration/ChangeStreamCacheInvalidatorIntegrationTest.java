@@ -0,0 +1,138 @@
+package com.franchise.api.config.integration;
+
+import com.franchise.api.config.CacheInvalidationEvent;
+import com.franchise.api.config.ChangeStreamCacheInvalidator;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.MongodArguments;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.config.Storage;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeStreamCacheInvalidatorIntegrationTest {
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient client;
+
+    private final List<CacheInvalidationEvent> events = new CopyOnWriteArrayList<>();
+    private final ApplicationEventPublisher publisher = event -> events.add((CacheInvalidationEvent) event);
+    private MongoTemplate mongoTemplate;
+    private ChangeStreamCacheInvalidator invalidator;
+
+    @BeforeAll
+    static void startReplicaSet() throws InterruptedException {
+        mongod = Mongod.builder()
+                .mongodArguments(Start.to(MongodArguments.class).initializedWith(MongodArguments.defaults()
+                        .withReplication(Storage.of("rs0", 10))
+                        .withUseNoJournal(false)))
+                .build()
+                .start(Version.Main.V6_0);
+        ServerAddress address = mongod.current().getServerAddress();
+        String uri = "mongodb://%s:%d/?directConnection=true".formatted(address.getHost(), address.getPort());
+        client = MongoClients.create(uri);
+        client.getDatabase("admin").runCommand(new Document("replSetInitiate", new Document("_id", "rs0")
+                .append("members", List.of(new Document("_id", 0).append("host", address.getHost() + ":" + address.getPort())))));
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (Boolean.TRUE.equals(client.getDatabase("admin").runCommand(new Document("hello", 1)).getBoolean("isWritablePrimary"))) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Replica set did not elect a primary");
+    }
+
+    @AfterAll
+    static void stopReplicaSet() {
+        client.close();
+        mongod.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = new MongoTemplate(client, "cache_it_" + System.nanoTime());
+        invalidator = newInvalidator();
+        invalidator.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invalidator.stop();
+    }
+
+    @Test
+    void shouldPublishEvictionsForFranchiseAndUserWrites() throws InterruptedException {
+        ObjectId franchiseId = new ObjectId();
+        awaitStreamOpened();
+
+        mongoTemplate.getCollection("franchises").insertOne(new Document("_id", franchiseId).append("name", "Remote"));
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", "user-1").append("username", "remote"));
+        mongoTemplate.getCollection("products").insertOne(new Document("_id", "product-1")
+                .append("franchiseId", franchiseId.toHexString()));
+
+        awaitEvents(3);
+        assertThat(events).contains(
+                new CacheInvalidationEvent(CacheInvalidationEvent.FRANCHISES, franchiseId.toHexString()),
+                new CacheInvalidationEvent(CacheInvalidationEvent.USERS, "user-1"));
+        assertThat(events).filteredOn(event -> event.concerns(CacheInvalidationEvent.FRANCHISES)).hasSize(2);
+    }
+
+    @Test
+    void shouldResumeFromPersistedTokenAfterRestart() throws InterruptedException {
+        awaitStreamOpened();
+        invalidator.stop();
+        assertThat(mongoTemplate.getCollection("cache_resume_tokens").countDocuments()).isEqualTo(1);
+
+        ObjectId missedWhileDown = new ObjectId();
+        mongoTemplate.getCollection("franchises").insertOne(new Document("_id", missedWhileDown).append("name", "Offline"));
+
+        invalidator = newInvalidator();
+        invalidator.start();
+
+        awaitEvents(1);
+        assertThat(events).contains(new CacheInvalidationEvent(CacheInvalidationEvent.FRANCHISES, missedWhileDown.toHexString()));
+    }
+
+    private ChangeStreamCacheInvalidator newInvalidator() {
+        FranchiseCacheProperties properties = new FranchiseCacheProperties();
+        properties.getChangeStreams().setEnabled(true);
+        properties.getChangeStreams().setInstanceId("it-instance");
+        return new ChangeStreamCacheInvalidator(mongoTemplate, publisher, properties);
+    }
+
+    private void awaitStreamOpened() throws InterruptedException {
+        // The first empty batch already yields a resume token, which is stored right away.
+        for (int attempt = 0; attempt < 50; attempt++) {
+            if (mongoTemplate.getCollection("cache_resume_tokens").countDocuments() > 0) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Change stream did not start");
+    }
+
+    private void awaitEvents(int expected) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && events.size() < expected; attempt++) {
+            Thread.sleep(100);
+        }
+        assertThat(events).hasSizeGreaterThanOrEqualTo(expected);
+    }
+}
@@ -1,22 +1,32 @@
 package com.franchise.api.controller.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.domain.Branch;
 import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
 import com.franchise.api.repository.FranchiseRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -84,5 +94,252 @@ class FranchiseControllerIntegrationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(username = "viewer", roles = "USER")
+    void shouldResolveTopProductPerActiveBranchInDatabase() throws Exception {
+        Branch centro = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .products(new ArrayList<>(List.of(
+                        Product.builder().id("p1").name("Burger").stock(10).build(),
+                        Product.builder().id("p2").name("Pizza").stock(25).build(),
+                        Product.builder().id("p3").name("Salad").stock(25).build())))
+                .build();
+        Branch empty = Branch.builder()
+                .id("branch-2")
+                .name("Norte")
+                .build();
+        Branch inactive = Branch.builder()
+                .id("branch-3")
+                .name("Sur")
+                .active(false)
+                .products(new ArrayList<>(List.of(Product.builder().id("p4").name("Taco").stock(99).build())))
+                .build();
+        Franchise franchise = franchiseRepository.save(Franchise.builder()
+                .name("Top Franchise")
+                .branches(new ArrayList<>(List.of(centro, empty, inactive)))
+                .build());
+
+        mockMvc.perform(get("/api/v1/franchises/{id}/branches/top-products", franchise.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].branchId").value("branch-1"))
+                .andExpect(jsonPath("$[0].product.id").value("p2"))
+                .andExpect(jsonPath("$[0].product.name").value("Pizza"))
+                .andExpect(jsonPath("$[0].product.stock").value(25));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldMaintainTopProductOnTargetedStockUpdates() throws Exception {
+        Branch centro = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .products(new ArrayList<>(List.of(
+                        Product.builder().id("p1").name("Burger").stock(10).build(),
+                        Product.builder().id("p2").name("Pizza").stock(25).build())))
+                .build();
+        Franchise franchise = franchiseRepository.save(Franchise.builder()
+                .name("Stock Franchise")
+                .branches(new ArrayList<>(List.of(centro)))
+                .build());
+
+        mockMvc.perform(post("/api/v1/franchises/{id}/branches/branch-1/products/p2/stock/adjust", franchise.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\": -20}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock").value(5));
+
+        mockMvc.perform(get("/api/v1/franchises/{id}/branches/top-products", franchise.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].product.id").value("p1"))
+                .andExpect(jsonPath("$[0].product.stock").value(10));
+
+        Branch stored = franchiseRepository.findById(franchise.getId()).orElseThrow().getBranches().get(0);
+        assertThat(stored.getStockSummary().getTotalStock()).isEqualTo(15);
+        assertThat(stored.getStockSummary().getProductCount()).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldHonourConditionalRequestHeaders() throws Exception {
+        Franchise franchise = franchiseRepository.save(Franchise.builder()
+                .name("Conditional Franchise")
+                .branches(new ArrayList<>(List.of(Branch.builder()
+                        .id("branch-1")
+                        .name("Centro")
+                        .products(new ArrayList<>(List.of(Product.builder().id("p1").name("Burger").stock(5).build())))
+                        .build())))
+                .build());
+
+        String etag = mockMvc.perform(get("/api/v1/franchises/{id}", franchise.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/franchises/{id}", franchise.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        String updatedEtag = mockMvc.perform(patch("/api/v1/franchises/{id}", franchise.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Franchise\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(updatedEtag).isNotEqualTo(etag);
+
+        mockMvc.perform(delete("/api/v1/franchises/{id}", franchise.getId()).header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/v1/franchises/{id}/branches/{branchId}", franchise.getId(), "branch-1")
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Norte\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/v1/franchises/{id}/branches/{branchId}/products/{productId}", franchise.getId(), "branch-1", "p1")
+                        .header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/v1/franchises/{id}", franchise.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, updatedEtag));
+        mockMvc.perform(patch("/api/v1/franchises/{id}/branches/{branchId}/products/{productId}/stock", franchise.getId(), "branch-1", "p1")
+                        .header(HttpHeaders.IF_MATCH, updatedEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stock\": 8}"))
+                .andExpect(status().isOk());
+
+        String listEtag = mockMvc.perform(get("/api/v1/franchises"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/v1/franchises").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldReplayRequestsWithTheSameIdempotencyKey() throws Exception {
+        Franchise franchise = franchiseRepository.save(Franchise.builder()
+                .name("Idempotent Franchise")
+                .branches(new ArrayList<>(List.of(Branch.builder().id("branch-1").name("Centro").build())))
+                .build());
+        String payload = "{\"name\": \"Burger\", \"stock\": 5}";
+
+        String created = mockMvc.perform(post("/api/v1/franchises/{id}/branches/branch-1/products", franchise.getId())
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/v1/franchises/{id}/branches/branch-1/products", franchise.getId())
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json(created));
+        mockMvc.perform(post("/api/v1/franchises/{id}/branches/branch-1/products", franchise.getId())
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Pizza\", \"stock\": 5}"))
+                .andExpect(status().isBadRequest());
+
+        Franchise stored = franchiseRepository.findById(franchise.getId()).orElseThrow();
+        assertThat(stored.getBranches().get(0).getProducts()).hasSize(1);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void shouldImportCsvRowsAndReportRowErrors() throws Exception {
+        franchiseRepository.save(Franchise.builder()
+                .name("Importada")
+                .branches(new ArrayList<>(List.of(Branch.builder()
+                        .id("branch-1")
+                        .name("Centro")
+                        .products(new ArrayList<>(List.of(Product.builder().id("p1").name("Burger").stock(3).build())))
+                        .build())))
+                .build());
+
+        String csv = """
+                franchise,branch,product,stock
+                Importada,Centro,Pizza,4
+                importada,Centro,burger,1
+                Nueva,"Norte, Local 2",Taco,7
+                Nueva,Norte,Taco,-1
+                ,Sur,Taco,1
+                Nueva,Sur,,
+                """;
+        mockMvc.perform(post("/api/v1/franchises/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(6))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.skipped").value(0))
+                .andExpect(jsonPath("$.franchisesCreated").value(1))
+                .andExpect(jsonPath("$.branchesCreated").value(2))
+                .andExpect(jsonPath("$.productsCreated").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Product with name 'burger' already exists in branch"))
+                .andExpect(jsonPath("$.errors[1].line").value(5))
+                .andExpect(jsonPath("$.errors[2].line").value(6));
+
+        Franchise existing = franchiseRepository.findByNameIgnoreCase("Importada").orElseThrow();
+        assertThat(existing.getBranches().get(0).getProducts()).extracting(Product::getName).containsExactly("Burger", "Pizza");
+        Franchise created = franchiseRepository.findByNameIgnoreCase("Nueva").orElseThrow();
+        assertThat(created.getBranches()).extracting(Branch::getName).containsExactly("Norte, Local 2", "Sur");
+        assertThat(created.getBranches().get(0).getProducts()).extracting(Product::getStock).containsExactly(7);
+
+        // Running the same file again skips the products it already imported instead of rejecting them.
+        mockMvc.perform(post("/api/v1/franchises/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.skipped").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.productsCreated").value(0));
+    }
+
+    @Test
+    @WithMockUser(username = "viewer", roles = "USER")
+    void shouldSearchProductsByNamePrefixAcrossFranchises() throws Exception {
+        franchiseRepository.save(Franchise.builder()
+                .name("Search North")
+                .branches(new ArrayList<>(List.of(Branch.builder()
+                        .id("branch-1")
+                        .name("Centro")
+                        .products(new ArrayList<>(List.of(
+                                Product.builder().id("p1").name("Burrito").stock(2).build(),
+                                Product.builder().id("p2").name("Pizza").stock(5).build())))
+                        .build())))
+                .build());
+        Franchise south = franchiseRepository.save(Franchise.builder()
+                .name("Search South")
+                .branches(new ArrayList<>(List.of(Branch.builder()
+                        .id("branch-2")
+                        .name("Sur")
+                        .products(new ArrayList<>(List.of(Product.builder().id("p3").name("burger").stock(7).build())))
+                        .build())))
+                .build());
+
+        String firstPage = mockMvc.perform(get("/api/v1/products/search").param("q", "BUR").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].productName").value("burger"))
+                .andExpect(jsonPath("$.items[0].franchiseId").value(south.getId()))
+                .andExpect(jsonPath("$.items[0].branchName").value("Sur"))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/v1/products/search").param("q", "BUR").param("limit", "1")
+                        .param("cursor", objectMapper.readTree(firstPage).get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].productName").value("Burrito"))
+                .andExpect(jsonPath("$.items[0].franchiseName").value("Search North"))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
     private record CreateFranchisePayload(String name) {}
 }
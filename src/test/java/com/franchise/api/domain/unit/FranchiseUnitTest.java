@@ -0,0 +1,138 @@
+package com.franchise.api.domain.unit;
+
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.BranchStockSummary;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FranchiseUnitTest {
+
+    @Test
+    void findBranchShouldResolveByIdAndCaseInsensitiveName() {
+        Branch centro = Branch.builder().id("branch-1").name("Centro").build();
+        Franchise franchise = Franchise.builder()
+                .branches(new ArrayList<>(List.of(centro)))
+                .build();
+
+        assertThat(franchise.findBranch("branch-1")).containsSame(centro);
+        assertThat(franchise.findBranchByName("CENTRO")).containsSame(centro);
+        assertThat(franchise.findBranch("missing")).isEmpty();
+    }
+
+    @Test
+    void indexShouldFollowAddRenameAndRemove() {
+        Franchise franchise = Franchise.builder().build();
+        Branch branch = Branch.builder().id("branch-1").name("Centro").build();
+        franchise.findBranch("branch-1");
+
+        franchise.addBranch(branch);
+        assertThat(franchise.findBranch("branch-1")).containsSame(branch);
+
+        franchise.renameBranch(branch, "Norte");
+        assertThat(franchise.findBranchByName("centro")).isEmpty();
+        assertThat(franchise.findBranchByName("norte")).containsSame(branch);
+
+        assertThat(franchise.removeBranch("branch-1")).isTrue();
+        assertThat(franchise.findBranch("branch-1")).isEmpty();
+        assertThat(franchise.getBranches()).isEmpty();
+    }
+
+    @Test
+    void indexShouldRebuildWhenListIsReplacedOrMutatedDirectly() {
+        Franchise franchise = Franchise.builder().build();
+        franchise.findBranch("branch-1");
+
+        List<Branch> loaded = new ArrayList<>();
+        loaded.add(Branch.builder().id("branch-1").name("Centro").build());
+        franchise.setBranches(loaded);
+        assertThat(franchise.findBranch("branch-1")).isPresent();
+
+        loaded.add(Branch.builder().id("branch-2").name("Sur").build());
+        assertThat(franchise.findBranchByName("sur")).isPresent();
+    }
+
+    @Test
+    void branchShouldIndexProducts() {
+        Branch branch = Branch.builder().id("branch-1").name("Centro").build();
+        Product product = Product.builder().id("product-1").name("Burger").stock(5).build();
+
+        branch.addProduct(product);
+        branch.renameProduct(product, "Veggie Burger");
+
+        assertThat(branch.findProduct("product-1")).containsSame(product);
+        assertThat(branch.findProductByName("veggie burger")).containsSame(product);
+        assertThat(branch.findProductByName("burger")).isEmpty();
+        assertThat(branch.removeProduct("product-1")).isTrue();
+        assertThat(branch.findProductByName("veggie burger")).isEmpty();
+    }
+
+    @Test
+    void stockSummaryShouldFollowProductWrites() {
+        Branch branch = Branch.builder().id("branch-1").name("Centro").build();
+        Product burger = Product.builder().id("p1").name("Burger").stock(10).build();
+        Product pizza = Product.builder().id("p2").name("Pizza").stock(25).build();
+        Product salad = Product.builder().id("p3").name("Salad").stock(20).build();
+
+        branch.addProduct(burger);
+        branch.addProduct(pizza);
+        branch.addProduct(salad);
+        branch.renameProduct(pizza, "Pizza Napoli");
+
+        BranchStockSummary summary = branch.getStockSummary();
+        assertThat(summary.getProductCount()).isEqualTo(3);
+        assertThat(summary.getTotalStock()).isEqualTo(55);
+        assertThat(summary.getTopProduct().getId()).isEqualTo("p2");
+        assertThat(summary.getTopProduct().getName()).isEqualTo("Pizza Napoli");
+
+        branch.updateStock(pizza, 5);
+        assertThat(summary.getTopProduct().getId()).isEqualTo("p3");
+        assertThat(summary.getTotalStock()).isEqualTo(35);
+
+        branch.updateStock(burger, 30);
+        assertThat(summary.getTopProduct().getId()).isEqualTo("p1");
+
+        assertThat(branch.removeProduct("p1")).isTrue();
+        assertThat(summary.getProductCount()).isEqualTo(2);
+        assertThat(summary.getTotalStock()).isEqualTo(25);
+        assertThat(summary.getTopProduct().getId()).isEqualTo("p3");
+    }
+
+    @Test
+    void stockSummaryShouldBeComputedForLoadedBranchesWithoutOne() {
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .products(new ArrayList<>(List.of(
+                        Product.builder().id("p1").name("Burger").stock(25).build(),
+                        Product.builder().id("p2").name("Pizza").stock(25).build())))
+                .build();
+
+        BranchStockSummary summary = branch.ensureStockSummary();
+
+        assertThat(summary.getProductCount()).isEqualTo(2);
+        assertThat(summary.getTopProduct().getId()).isEqualTo("p1");
+    }
+
+    @Test
+    void stockSummaryTiesShouldNotDependOnWriteHistory() {
+        Product pizza = Product.builder().id("p2").name("Pizza").stock(10).build();
+        Product burger = Product.builder().id("p1").name("Burger").stock(5).build();
+        Branch branch = Branch.builder().id("branch-1").name("Centro").build();
+        branch.addProduct(pizza);
+        branch.addProduct(burger);
+
+        branch.updateStock(burger, 10);
+
+        assertThat(branch.getStockSummary().getTopProduct().getName()).isEqualTo("Burger");
+        assertThat(BranchStockSummary.of(List.of(pizza, burger)).getTopProduct().getName()).isEqualTo("Burger");
+
+        branch.renameProduct(burger, "Wrap");
+        assertThat(branch.getStockSummary().getTopProduct().getName()).isEqualTo("Pizza");
+    }
+}
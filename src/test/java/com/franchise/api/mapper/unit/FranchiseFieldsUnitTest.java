@@ -0,0 +1,86 @@
+package com.franchise.api.mapper.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.mapper.FranchiseFields;
+import com.franchise.api.mapper.FranchiseJsonSerializer;
+import com.franchise.api.mapper.TopProductFields;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FranchiseFieldsUnitTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(FranchiseJsonSerializer.module());
+
+    private final Franchise franchise = Franchise.builder()
+            .id("franchise-1")
+            .name("Franchise")
+            .branches(List.of(Branch.builder()
+                    .id("branch-1")
+                    .name("Centro")
+                    .products(List.of(Product.builder().id("p1").name("Burger").stock(10).build()))
+                    .build()))
+            .build();
+
+    @Test
+    void missingParametersShouldSelectEverything() {
+        assertThat(FranchiseFields.parse(null, null)).isSameAs(FranchiseFields.ALL);
+        assertThat(FranchiseFields.parse(" ", FranchiseFields.MAX_DEPTH)).isSameAs(FranchiseFields.ALL);
+    }
+
+    @Test
+    void shouldRejectUnknownFieldsAndDepth() {
+        assertThrows(BadRequestException.class, () -> FranchiseFields.parse("name,branches.price", null));
+        assertThrows(BadRequestException.class, () -> FranchiseFields.parse("products", null));
+        assertThrows(BadRequestException.class, () -> FranchiseFields.parse(null, 3));
+    }
+
+    @Test
+    void shouldWriteAndProjectOnlySelectedFields() throws Exception {
+        FranchiseFields fields = FranchiseFields.parse("name,branches.name,branches.products.stock", null);
+
+        assertThat(write(fields)).isEqualTo("{\"name\":\"Franchise\",\"branches\":[{\"name\":\"Centro\",\"products\":[{\"stock\":10}]}]}");
+        assertThat(fields.projection())
+                .containsExactly("version", "name", "branches._id", "branches.name", "branches.products._id", "branches.products.stock");
+    }
+
+    @Test
+    void depthShouldCutTheTree() throws Exception {
+        FranchiseFields franchiseOnly = FranchiseFields.parse(null, 0);
+        FranchiseFields withBranches = FranchiseFields.parse("id,branches", 1);
+
+        assertThat(write(franchiseOnly)).isEqualTo("{\"id\":\"franchise-1\",\"name\":\"Franchise\",\"active\":true}");
+        assertThat(franchiseOnly.projection()).containsExactly("version", "name", "active");
+        assertThat(write(withBranches))
+                .isEqualTo("{\"id\":\"franchise-1\",\"branches\":[{\"id\":\"branch-1\",\"name\":\"Centro\",\"active\":true}]}");
+        assertThat(withBranches.includesProducts()).isFalse();
+    }
+
+    @Test
+    void topProductFieldsShouldKeepSelectedFields() {
+        List<TopProductPerBranchResponse> topProducts = List.of(
+                new TopProductPerBranchResponse("branch-1", "Centro", new ProductResponse("p1", "Burger", 10)));
+
+        assertThat(TopProductFields.parse("branchName,product.stock", null).apply(topProducts))
+                .containsExactly(Map.of("branchName", "Centro", "product", Map.of("stock", 10)));
+        assertThat(TopProductFields.parse(null, 0).apply(topProducts))
+                .containsExactly(Map.of("branchId", "branch-1", "branchName", "Centro"));
+        assertThrows(BadRequestException.class, () -> TopProductFields.parse("product.price", null));
+    }
+
+    private String write(FranchiseFields fields) throws Exception {
+        byte[] json = objectMapper.writer().withAttribute(FranchiseJsonSerializer.FIELDS, fields).writeValueAsBytes(franchise);
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
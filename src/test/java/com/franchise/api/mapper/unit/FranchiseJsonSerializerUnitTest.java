@@ -0,0 +1,53 @@
+package com.franchise.api.mapper.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.mapper.FranchiseJsonSerializer;
+import com.franchise.api.mapper.FranchiseMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FranchiseJsonSerializerUnitTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper streamingMapper = new ObjectMapper().registerModule(FranchiseJsonSerializer.module());
+
+    @Test
+    void shouldMatchMappedResponseJson() throws Exception {
+        Branch centro = Branch.builder()
+                .id("branch-1")
+                .name("Centro \"Histórico\" ☃")
+                .products(new ArrayList<>(Arrays.asList(
+                        Product.builder().id("p1").name("Burger").stock(10).build(),
+                        null,
+                        Product.builder().id("p2").name(null).stock(0).build())))
+                .build();
+        Branch inactive = Branch.builder().id("branch-2").name("Norte").active(false).products(null).build();
+        Franchise franchise = Franchise.builder()
+                .id("franchise-1")
+                .name("Franchise\n<One>")
+                .branches(new ArrayList<>(Arrays.asList(centro, null, inactive)))
+                .build();
+
+        assertSameJson(franchise);
+    }
+
+    @Test
+    void shouldMatchMappedResponseJsonForMissingValues() throws Exception {
+        assertSameJson(Franchise.builder().id(null).name(null).active(null).branches(null).build());
+        assertSameJson(Franchise.builder().id("franchise-2").name("Inactive").active(false).branches(List.of()).build());
+    }
+
+    private void assertSameJson(Franchise franchise) throws Exception {
+        byte[] expected = objectMapper.writeValueAsBytes(FranchiseMapper.toResponse(franchise));
+
+        assertThat(streamingMapper.writeValueAsBytes(franchise)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,150 @@
+package com.franchise.api.repository.integration;
+
+import com.franchise.api.config.ProductStorageMigration;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.BranchProduct;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.repository.CollectionProductStore;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.ProductStore;
+import com.franchise.api.repository.StockWrite;
+import com.franchise.api.repository.StockWriteResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "franchise.persistence.products.storage=collection")
+class CollectionProductStoreIntegrationTest {
+
+    @Autowired
+    private ProductStore productStore;
+
+    @Autowired
+    private FranchiseRepository franchiseRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProductStorageMigration migration;
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.database", () -> "products_it_" + System.nanoTime());
+        registry.add("spring.mongodb.embedded.version", () -> "6.0.5");
+    }
+
+    @BeforeEach
+    void cleanDatabase() {
+        franchiseRepository.deleteAll();
+        mongoTemplate.remove(new Query(), BranchProduct.class);
+    }
+
+    @Test
+    void shouldUseTheProductsCollection() {
+        assertThat(productStore).isInstanceOf(CollectionProductStore.class);
+    }
+
+    @Test
+    void shouldAddRenameAndRemoveProductsAndBumpTheFranchiseVersion() {
+        Franchise franchise = saveFranchise();
+        Branch branch = franchise.getBranches().get(0);
+        long version = franchise.getVersion();
+
+        productStore.addProduct(franchise, branch, product("p1", "Burger", 5));
+        productStore.addProduct(franchise, branch, product("p2", "Fries", 3));
+        assertThrows(DuplicateKeyException.class, () -> productStore.addProduct(franchise, branch, product("p3", "BURGER", 1)));
+
+        Product fries = productStore.findProduct(franchise, branch, "p2").orElseThrow();
+        productStore.renameProduct(franchise, branch, fries, "Onion rings");
+        assertThat(productStore.findProduct(franchise, branch, "p2")).map(Product::getName).contains("Onion rings");
+        assertThat(productStore.removeProduct(franchise, branch, "p1")).isTrue();
+        assertThat(productStore.removeProduct(franchise, branch, "p1")).isFalse();
+
+        Franchise stored = franchiseRepository.findById(franchise.getId()).orElseThrow();
+        assertThat(stored.getBranches().get(0).getProducts()).isEmpty();
+        assertThat(stored.getVersion()).isEqualTo(version + 4);
+        productStore.loadProducts(List.of(stored));
+        assertThat(stored.getBranches().get(0).getProducts()).extracting(Product::getId).containsExactly("p2");
+    }
+
+    @Test
+    void topProductShouldPreferHigherStockThenTheFirstName() {
+        Franchise franchise = saveFranchise();
+        Branch branch = franchise.getBranches().get(0);
+        productStore.addProduct(franchise, branch, product("p1", "Fries", 7));
+        productStore.addProduct(franchise, branch, product("p2", "Burger", 7));
+        productStore.addProduct(franchise, branch, product("p3", "Cola", 2));
+
+        List<TopProductPerBranchResponse> top = productStore.findTopProductPerBranch(franchise.getId());
+
+        assertThat(top).singleElement().satisfies(result -> assertThat(result.product().id()).isEqualTo("p2"));
+    }
+
+    @Test
+    void stockWritesShouldReportEachWrite() {
+        Franchise franchise = saveFranchise();
+        Branch branch = franchise.getBranches().get(0);
+        productStore.addProduct(franchise, branch, product("p1", "Burger", 5));
+        productStore.addProduct(franchise, branch, product("p2", "Fries", 3));
+
+        List<StockWriteResult> results = productStore.applyStockWrites(franchise.getId(), List.of(
+                new StockWrite(branch.getId(), "p1", -2, true),
+                new StockWrite(branch.getId(), "p2", -4, true),
+                new StockWrite(branch.getId(), "missing", 1, false)));
+
+        assertThat(results).containsExactly(StockWriteResult.applied(3), StockWriteResult.rejected(3), StockWriteResult.rejected(null));
+        assertThat(productStore.findProduct(franchise, branch, "p2")).map(Product::getStock).contains(3);
+        assertThat(productStore.adjustStock(franchise.getId(), branch.getId(), "p1", Integer.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void migrationShouldMoveEmbeddedProductsAndBeSafeToRepeat() throws Exception {
+        Franchise franchise = saveFranchise(product("p1", "Burger", 5), product("p2", "Fries", 3));
+
+        migration.run(new DefaultApplicationArguments("--" + ProductStorageMigration.OPTION));
+        // A run interrupted before clearing the embedded array leaves both copies behind.
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(franchise.getId())),
+                new Update().set("branches.0.products", List.of(product("p1", "Burger", 5))), Franchise.class);
+        migration.run(new DefaultApplicationArguments("--" + ProductStorageMigration.OPTION));
+        migration.run(new DefaultApplicationArguments("--" + ProductStorageMigration.OPTION));
+
+        assertThat(mongoTemplate.count(new Query(), BranchProduct.class)).isEqualTo(2);
+        Franchise stored = franchiseRepository.findById(franchise.getId()).orElseThrow();
+        assertThat(stored.getBranches().get(0).getProducts()).isEmpty();
+        productStore.loadProducts(List.of(stored));
+        assertThat(stored.getBranches().get(0).getProducts())
+                .extracting(Product::getId, Product::getStock)
+                .containsExactlyInAnyOrder(tuple("p1", 5), tuple("p2", 3));
+    }
+
+    private Franchise saveFranchise(Product... products) {
+        Branch branch = Branch.builder().id("branch-1").name("Centro").products(new ArrayList<>(List.of(products))).build();
+        return franchiseRepository.save(Franchise.builder()
+                .name("Franchise " + System.nanoTime())
+                .branches(new ArrayList<>(List.of(branch)))
+                .build());
+    }
+
+    private static Product product(String id, String name, int stock) {
+        return Product.builder().id(id).name(name).stock(stock).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.franchise.api.security.unit;
+
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.security.UserAccount;
+import com.franchise.api.security.UserAccountDetailsService;
+import com.franchise.api.security.UserAccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserAccountDetailsServiceUnitTest {
+
+    @Mock
+    private UserAccountRepository repository;
+
+    @Test
+    void shouldNotCacheUsersWithoutChangeStreams() {
+        when(repository.findByUsernameIgnoreCase("admin")).thenReturn(Optional.of(account()));
+        UserAccountDetailsService service = new UserAccountDetailsService(repository, new FranchiseCacheProperties(), new SimpleMeterRegistry());
+
+        service.loadUserByUsername("admin");
+        service.loadUserByUsername("admin");
+
+        verify(repository, times(2)).findByUsernameIgnoreCase("admin");
+    }
+
+    @Test
+    void shouldCacheUsersWhenChangeStreamsEvictThem() {
+        when(repository.findByUsernameIgnoreCase("admin")).thenReturn(Optional.of(account()));
+        FranchiseCacheProperties properties = new FranchiseCacheProperties();
+        properties.getChangeStreams().setEnabled(true);
+        UserAccountDetailsService service = new UserAccountDetailsService(repository, properties, new SimpleMeterRegistry());
+
+        service.loadUserByUsername("admin");
+        service.loadUserByUsername("ADMIN");
+
+        verify(repository, times(1)).findByUsernameIgnoreCase("admin");
+    }
+
+    private static UserAccount account() {
+        return UserAccount.builder().username("admin").password("encoded").build();
+    }
+}
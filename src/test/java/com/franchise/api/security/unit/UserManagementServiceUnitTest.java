@@ -10,12 +10,18 @@ import com.franchise.api.security.Role;
 import com.franchise.api.security.UserAccount;
 import com.franchise.api.security.UserAccountRepository;
 import com.franchise.api.security.UserManagementService;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
@@ -25,6 +31,7 @@ import java.util.Set;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -49,10 +56,8 @@ class UserManagementServiceUnitTest {
                 "new.user@example.com",
                 Set.of("USER")
         );
-        when(repository.findByUsernameIgnoreCase("newUser")).thenReturn(Optional.empty());
-        when(repository.findByEmailIgnoreCase("new.user@example.com")).thenReturn(Optional.empty());
         when(passwordEncoder.encode("SecurePass123!")).thenReturn("encoded");
-        when(repository.save(any(UserAccount.class))).thenAnswer(invocation -> {
+        when(repository.insert(any(UserAccount.class))).thenAnswer(invocation -> {
             UserAccount account = invocation.getArgument(0);
             account.setId("generated-id");
             return account;
@@ -66,7 +71,7 @@ class UserManagementServiceUnitTest {
         assertThat(response.roles()).containsExactly("USER");
 
         ArgumentCaptor<UserAccount> captor = ArgumentCaptor.forClass(UserAccount.class);
-        verify(repository).save(captor.capture());
+        verify(repository).insert(captor.capture());
         UserAccount saved = captor.getValue();
         assertThat(saved.getFullName()).isEqualTo("Nuevo Usuario");
         assertThat(saved.getPassword()).isEqualTo("encoded");
@@ -82,9 +87,12 @@ class UserManagementServiceUnitTest {
                 "duplicate@example.com",
                 Set.of("USER")
         );
-        when(repository.findByUsernameIgnoreCase("admin")).thenReturn(Optional.of(new UserAccount()));
+        when(repository.findByUsernameIgnoreCase("admin")).thenReturn(Optional.of(UserAccount.builder().username("Admin").build()));
 
-        assertThrows(ConflictException.class, () -> service.createUser(request));
+        ConflictException ex = assertThrows(ConflictException.class, () -> service.createUser(request));
+        assertThat(ex.getMessage()).contains("nombre 'admin'");
+        verify(passwordEncoder, never()).encode(any());
+        verify(repository, never()).insert(any(UserAccount.class));
     }
 
     @Test
@@ -96,10 +104,31 @@ class UserManagementServiceUnitTest {
                 "duplicate@example.com",
                 Set.of("USER")
         );
-        when(repository.findByUsernameIgnoreCase("uniqueUser")).thenReturn(Optional.empty());
-        when(repository.findByEmailIgnoreCase("duplicate@example.com")).thenReturn(Optional.of(new UserAccount()));
+        when(repository.findByEmailIgnoreCase("duplicate@example.com"))
+                .thenReturn(Optional.of(UserAccount.builder().email("duplicate@example.com").build()));
 
-        assertThrows(ConflictException.class, () -> service.createUser(request));
+        ConflictException ex = assertThrows(ConflictException.class, () -> service.createUser(request));
+        assertThat(ex.getMessage()).contains("correo 'duplicate@example.com'");
+        verify(passwordEncoder, never()).encode(any());
+    }
+
+    @Test
+    void createUserShouldTellConcurrentDuplicatesApartByTheReportedKey() {
+        CreateUserRequest request = new CreateUserRequest(
+                "uniqueUser",
+                "SecurePass123!",
+                "Nuevo Usuario",
+                "duplicate@example.com",
+                Set.of("USER")
+        );
+        // The message names the username index, but the reported key is what decides.
+        WriteError error = new WriteError(11000, "E11000 duplicate key error index: username_ci",
+                new BsonDocument("keyPattern", new BsonDocument("email", new BsonInt32(1))));
+        when(repository.insert(any(UserAccount.class))).thenThrow(new DuplicateKeyException("E11000 duplicate key error index: username_ci",
+                new MongoWriteException(error, new ServerAddress())));
+
+        ConflictException ex = assertThrows(ConflictException.class, () -> service.createUser(request));
+        assertThat(ex.getMessage()).contains("correo 'duplicate@example.com'");
     }
 
     @Test
@@ -111,9 +140,6 @@ class UserManagementServiceUnitTest {
                 "valid@example.com",
                 Set.of("MANAGER")
         );
-        when(repository.findByUsernameIgnoreCase("uniqueUser")).thenReturn(Optional.empty());
-        when(repository.findByEmailIgnoreCase("valid@example.com")).thenReturn(Optional.empty());
-
         assertThrows(BadRequestException.class, () -> service.createUser(request));
     }
 
@@ -0,0 +1,99 @@
+package com.franchise.api.service.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.ExportFormat;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.repository.EmbeddedProductStore;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.service.FranchiseExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FranchiseExportServiceUnitTest {
+
+    @Mock
+    private FranchiseRepository franchiseRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FranchiseExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new FranchiseExportService(franchiseRepository, new EmbeddedProductStore(franchiseRepository), objectMapper);
+    }
+
+    @Test
+    void exportShouldWriteOneLinePerFranchise() throws Exception {
+        when(franchiseRepository.streamFranchises(true)).thenReturn(Stream.of(franchise("f1", "Uno"), franchise("f2", "Dos")));
+
+        String[] lines = export(true, ExportFormat.FRANCHISE);
+
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("name").asText()).isEqualTo("Uno");
+        assertThat(objectMapper.readTree(lines[1]).get("branches").get(0).get("products")).hasSize(2);
+    }
+
+    @Test
+    void exportShouldFlattenProducts() throws Exception {
+        when(franchiseRepository.streamFranchises(null)).thenReturn(Stream.of(franchise("f1", "Uno")));
+
+        String[] lines = export(null, ExportFormat.PRODUCT);
+
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("franchiseId").asText()).isEqualTo("f1");
+        assertThat(first.get("branchName").asText()).isEqualTo("Centro");
+        assertThat(first.get("productName").asText()).isEqualTo("Burger");
+        assertThat(first.get("stock").asInt()).isEqualTo(10);
+    }
+
+    @Test
+    void resolveFormatShouldRejectUnknownValues() {
+        assertThat(exportService.resolveFormat("product")).isEqualTo(ExportFormat.PRODUCT);
+        assertThat(exportService.resolveFormat(null)).isEqualTo(ExportFormat.FRANCHISE);
+        assertThrows(BadRequestException.class, () -> exportService.resolveFormat("csv"));
+    }
+
+    private String[] export(Boolean active, ExportFormat format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(output, active, format);
+        String content = output.toString(StandardCharsets.UTF_8);
+        assertThat(content).endsWith("\n");
+        return content.split("\n");
+    }
+
+    private Franchise franchise(String id, String name) {
+        Branch branch = Branch.builder()
+                .id(id + "-b1")
+                .name("Centro")
+                .products(new ArrayList<>(List.of(
+                        Product.builder().id(id + "-p1").name("Burger").stock(10).build(),
+                        Product.builder().id(id + "-p2").name("Pizza").stock(5).build())))
+                .build();
+        return Franchise.builder()
+                .id(id)
+                .name(name)
+                .active(true)
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.franchise.api.service.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.ImportFormat;
+import com.franchise.api.dto.ImportReport;
+import com.franchise.api.repository.EmbeddedProductStore;
+import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.service.FranchiseImportService;
+import com.franchise.api.service.FranchiseResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FranchiseImportServiceUnitTest {
+
+    @Mock
+    private FranchiseRepository franchiseRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private FranchiseImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        importService = new FranchiseImportService(franchiseRepository, new EmbeddedProductStore(franchiseRepository), mongoTemplate,
+                new FranchiseResponseCache(new FranchiseCacheProperties(), new SimpleMeterRegistry(), objectMapper),
+                new FranchisePersistenceProperties(), objectMapper);
+    }
+
+    @Test
+    void importShouldSkipProductsThatAlreadyExistWithTheSameStock() throws Exception {
+        Franchise franchise = Franchise.builder()
+                .id("franchise-1")
+                .name("Importada")
+                .active(true)
+                .branches(new ArrayList<>(List.of(Branch.builder()
+                        .id("branch-1")
+                        .name("Centro")
+                        .products(new ArrayList<>(List.of(Product.builder().id("p1").name("Burger").stock(3).build())))
+                        .build())))
+                .build();
+        when(franchiseRepository.findByNames(any())).thenReturn(List.of(franchise));
+        when(franchiseRepository.save(franchise)).thenReturn(franchise);
+
+        ImportReport report = importService.importFranchises(new ByteArrayInputStream("""
+                franchise,branch,product,stock
+                Importada,Centro,burger,3
+                Importada,Centro,Burger,5
+                Importada,Centro,Pizza,4
+                importada,centro,pizza,4
+                """.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+
+        assertThat(report.rows()).isEqualTo(4);
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.skipped()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.productsCreated()).isEqualTo(1);
+        assertThat(report.errors()).singleElement()
+                .satisfies(error -> assertThat(error.line()).isEqualTo(3));
+        assertThat(franchise.getBranches().get(0).getProducts()).extracting(Product::getName).containsExactly("Burger", "Pizza");
+        verify(franchiseRepository).save(franchise);
+    }
+}
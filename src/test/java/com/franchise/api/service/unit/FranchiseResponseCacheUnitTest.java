@@ -0,0 +1,76 @@
+package com.franchise.api.service.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.service.FranchiseResponseCache;
+import com.franchise.api.service.SerializedResponse;
+import com.franchise.api.service.Versioned;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FranchiseResponseCacheUnitTest {
+
+    private FranchiseResponseCache cache;
+    private List<Set<String>> loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FranchiseResponseCache(new FranchiseCacheProperties(), new SimpleMeterRegistry(), new ObjectMapper());
+        loads = new ArrayList<>();
+    }
+
+    @Test
+    void getAllShouldOnlyLoadEntriesMissingOrCachedAtAnotherTag() {
+        cache.getAll(Map.of("f1", "1", "f2", "1"), ids -> load(ids, "1"));
+        Map<String, SerializedResponse> entries = cache.getAll(Map.of("f1", "1", "f2", "2"), ids -> load(ids, "2"));
+
+        assertThat(loads).containsExactly(Set.of("f1", "f2"), Set.of("f2"));
+        assertThat(entries.get("f1").tag()).isEqualTo("1");
+        assertThat(entries.get("f2").tag()).isEqualTo("2");
+        cache.get("f2", id -> Optional.of("2"), id -> load(Set.of(id), "2").get(id));
+        assertThat(loads).hasSize(2);
+    }
+
+    @Test
+    void getAllShouldNotStoreWhatItLoadedBeforeAConcurrentEviction() {
+        Map<String, SerializedResponse> entries = cache.getAll(Map.of("f1", "1"), ids -> {
+            Map<String, Versioned<Franchise>> loaded = load(ids, "1");
+            // A writer persists version 2 and evicts while the old document is being serialized.
+            cache.evict("f1");
+            return loaded;
+        });
+
+        assertThat(entries.get("f1").tag()).isEqualTo("1");
+        assertThat(cache.get("f1", id -> Optional.of("2"), id -> load(Set.of(id), "2").get(id)).tag()).isEqualTo("2");
+    }
+
+    @Test
+    void getShouldReloadAnEntryWhoseTagNoLongerMatchesTheStoredOne() {
+        SerializedResponse first = cache.get("f1", id -> Optional.of("1"), id -> load(Set.of(id), "1").get(id));
+        SerializedResponse hit = cache.get("f1", id -> Optional.of("1"), id -> load(Set.of(id), "1").get(id));
+        // Another instance wrote version 2 and no change stream evicted the entry.
+        SerializedResponse reloaded = cache.get("f1", id -> Optional.of("2"), id -> load(Set.of(id), "2").get(id));
+
+        assertThat(hit).isSameAs(first);
+        assertThat(reloaded.tag()).isEqualTo("2");
+        assertThat(loads).hasSize(2);
+    }
+
+    private Map<String, Versioned<Franchise>> load(Set<String> ids, String tag) {
+        loads.add(Set.copyOf(ids));
+        Map<String, Versioned<Franchise>> loaded = new HashMap<>();
+        ids.forEach(id -> loaded.put(id, new Versioned<>(Franchise.builder().id(id).name("Franchise " + id).build(), tag)));
+        return loaded;
+    }
+}
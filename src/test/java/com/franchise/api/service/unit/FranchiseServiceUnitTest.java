@@ -1,20 +1,47 @@
 package com.franchise.api.service.unit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.config.FranchisePersistenceProperties;
 import com.franchise.api.domain.Branch;
 import com.franchise.api.domain.Franchise;
 import com.franchise.api.domain.Product;
+import com.franchise.api.dto.AdjustProductStockRequest;
 import com.franchise.api.dto.BranchResponse;
+import com.franchise.api.dto.BulkStockUpdateItem;
+import com.franchise.api.dto.BulkStockUpdateRequest;
+import com.franchise.api.dto.BulkStockUpdateResponse;
+import com.franchise.api.dto.BulkStockUpdateStatus;
 import com.franchise.api.dto.CreateBranchRequest;
 import com.franchise.api.dto.CreateProductRequest;
 import com.franchise.api.dto.CreateFranchiseRequest;
+import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.dto.FranchiseSummaryResponse;
+import com.franchise.api.dto.PageResponse;
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.ProductSearchResult;
 import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.dto.UpdateBranchNameRequest;
 import com.franchise.api.dto.UpdateBranchStatusRequest;
+import com.franchise.api.dto.UpdateFranchiseNameRequest;
 import com.franchise.api.dto.UpdateFranchiseStatusRequest;
+import com.franchise.api.dto.UpdateProductNameRequest;
+import com.franchise.api.dto.UpdateProductStockRequest;
 import com.franchise.api.exception.BadRequestException;
 import com.franchise.api.exception.ConflictException;
+import com.franchise.api.exception.PreconditionFailedException;
 import com.franchise.api.exception.ResourceNotFoundException;
+import com.franchise.api.mapper.FranchiseFields;
+import com.franchise.api.repository.EmbeddedProductStore;
 import com.franchise.api.repository.FranchiseRepository;
+import com.franchise.api.repository.StockWrite;
+import com.franchise.api.repository.StockWriteResult;
+import com.franchise.api.service.FranchiseResponseCache;
 import com.franchise.api.service.FranchiseService;
+import com.franchise.api.service.OptimisticRetryExecutor;
+import com.franchise.api.service.SerializedResponse;
+import com.franchise.api.service.StockWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,7 +49,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +61,9 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,14 +78,13 @@ class FranchiseServiceUnitTest {
 
     @BeforeEach
     void setUp() {
-        franchiseService = new FranchiseService(franchiseRepository);
+        franchiseService = newService(new FranchiseCacheProperties());
     }
 
     @Test
     void createFranchiseShouldPersistNewEntity() {
         CreateFranchiseRequest request = new CreateFranchiseRequest("New Franchise", null);
-        when(franchiseRepository.findByNameIgnoreCase("New Franchise")).thenReturn(Optional.empty());
-        when(franchiseRepository.save(any(Franchise.class))).thenAnswer(invocation -> {
+        when(franchiseRepository.insert(any(Franchise.class))).thenAnswer(invocation -> {
             Franchise franchise = invocation.getArgument(0);
             franchise.setId("generated-id");
             return franchise;
@@ -68,11 +101,28 @@ class FranchiseServiceUnitTest {
     @Test
     void createFranchiseShouldFailWhenNameAlreadyExists() {
         CreateFranchiseRequest request = new CreateFranchiseRequest("Existing", null);
-        when(franchiseRepository.findByNameIgnoreCase("Existing")).thenReturn(Optional.of(new Franchise()));
+        when(franchiseRepository.insert(any(Franchise.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: name_ci"));
 
         assertThrows(ConflictException.class, () -> franchiseService.createFranchise(request));
     }
 
+    @Test
+    void updateFranchiseNameShouldFailWhenNameAlreadyExists() {
+        Franchise franchise = Franchise.builder()
+                .id("franchise-1")
+                .name("Franchise")
+                .active(true)
+                .build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+        when(franchiseRepository.save(franchise))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: name_ci"));
+
+        assertThrows(ConflictException.class,
+                () -> franchiseService.updateFranchiseName("franchise-1", new UpdateFranchiseNameRequest("Existing")));
+        verify(franchiseRepository, times(1)).save(franchise);
+    }
+
     @Test
     void addBranchShouldAppendBranchToFranchise() {
         Franchise franchise = Franchise.builder()
@@ -135,23 +185,10 @@ class FranchiseServiceUnitTest {
     }
 
     @Test
-    void getTopProductPerBranchShouldReturnProductWithHighestStock() {
-        Franchise franchise = Franchise.builder()
-                .id("franchise-1")
-                .name("Franchise")
-                .active(true)
-                .branches(new ArrayList<>())
-                .build();
-        Branch branch = Branch.builder()
-                .id("branch-1")
-                .name("Centro")
-                .products(new ArrayList<>())
-                .build();
-        branch.getProducts().add(Product.builder().id("p1").name("Burger").stock(10).build());
-        branch.getProducts().add(Product.builder().id("p2").name("Pizza").stock(25).build());
-        franchise.getBranches().add(branch);
-
-        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+    void getTopProductPerBranchShouldReturnAggregatedResults() {
+        List<TopProductPerBranchResponse> aggregated = List.of(
+                new TopProductPerBranchResponse("branch-1", "Centro", new ProductResponse("p2", "Pizza", 25)));
+        when(franchiseRepository.findTopProductPerBranch("franchise-1")).thenReturn(aggregated);
 
         List<TopProductPerBranchResponse> topProducts = franchiseService.getTopProductPerBranch("franchise-1");
 
@@ -160,6 +197,15 @@ class FranchiseServiceUnitTest {
         assertThat(response.branchId()).isEqualTo("branch-1");
         assertThat(response.product().id()).isEqualTo("p2");
         assertThat(response.product().stock()).isEqualTo(25);
+        verify(franchiseRepository, never()).findById(any());
+    }
+
+    @Test
+    void getTopProductPerBranchShouldFailWhenFranchiseMissing() {
+        when(franchiseRepository.findTopProductPerBranch("missing")).thenReturn(List.of());
+        when(franchiseRepository.existsById("missing")).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> franchiseService.getTopProductPerBranch("missing"));
     }
 
     @Test
@@ -278,23 +324,467 @@ class FranchiseServiceUnitTest {
     }
 
     @Test
-    void getTopProductPerBranchShouldIgnoreInactiveBranches() {
-        Branch inactiveBranch = Branch.builder()
-                .id("branch-inactive")
-                .name("Inactive")
-                .active(false)
-                .products(new ArrayList<>(List.of(Product.builder().id("p1").name("Burger").stock(10).build())))
+    void getTopProductPerBranchShouldReturnEmptyWhenNoActiveBranchHasProducts() {
+        when(franchiseRepository.findTopProductPerBranch("franchise-1")).thenReturn(List.of());
+        when(franchiseRepository.existsById("franchise-1")).thenReturn(true);
+
+        List<TopProductPerBranchResponse> topProducts = franchiseService.getTopProductPerBranch("franchise-1");
+
+        assertThat(topProducts).isEmpty();
+    }
+
+    @Test
+    void updateProductStockShouldUseTargetedUpdateWithoutLoadingFranchise() {
+        when(franchiseRepository.updateProductStock("franchise-1", "branch-1", "p1", 40))
+                .thenReturn(Optional.of(Product.builder().id("p1").name("Burger").stock(40).build()));
+
+        ProductResponse response = franchiseService.updateProductStock("franchise-1", "branch-1", "p1", new UpdateProductStockRequest(40));
+
+        assertThat(response.id()).isEqualTo("p1");
+        assertThat(response.stock()).isEqualTo(40);
+        verify(franchiseRepository, never()).findById(any());
+        verify(franchiseRepository, never()).save(any(Franchise.class));
+    }
+
+    @Test
+    void updateProductStockShouldFailWhenProductMissing() {
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .products(new ArrayList<>())
                 .build();
         Franchise franchise = Franchise.builder()
                 .id("franchise-1")
                 .name("Franchise")
                 .active(true)
-                .branches(new ArrayList<>(List.of(inactiveBranch)))
+                .branches(new ArrayList<>(List.of(branch)))
                 .build();
+        when(franchiseRepository.updateProductStock("franchise-1", "branch-1", "missing", 5)).thenReturn(Optional.empty());
         when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
 
-        List<TopProductPerBranchResponse> topProducts = franchiseService.getTopProductPerBranch("franchise-1");
+        assertThrows(ResourceNotFoundException.class, () ->
+                franchiseService.updateProductStock("franchise-1", "branch-1", "missing", new UpdateProductStockRequest(5)));
+    }
 
-        assertThat(topProducts).isEmpty();
+    @Test
+    void adjustProductStockShouldReturnNewStock() {
+        when(franchiseRepository.adjustProductStock("franchise-1", "branch-1", "p1", -3))
+                .thenReturn(Optional.of(Product.builder().id("p1").name("Burger").stock(7).build()));
+
+        ProductResponse response = franchiseService.adjustProductStock("franchise-1", "branch-1", "p1", new AdjustProductStockRequest(-3));
+
+        assertThat(response.stock()).isEqualTo(7);
+        verify(franchiseRepository, never()).findById(any());
+    }
+
+    @Test
+    void adjustProductStockShouldRejectNegativeResult() {
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .products(new ArrayList<>(List.of(Product.builder().id("p1").name("Burger").stock(2).build())))
+                .build();
+        Franchise franchise = Franchise.builder()
+                .id("franchise-1")
+                .name("Franchise")
+                .active(true)
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+        when(franchiseRepository.adjustProductStock("franchise-1", "branch-1", "p1", -5)).thenReturn(Optional.empty());
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+
+        assertThrows(BadRequestException.class, () ->
+                franchiseService.adjustProductStock("franchise-1", "branch-1", "p1", new AdjustProductStockRequest(-5)));
+    }
+
+    @Test
+    void updateFranchiseStatusShouldRetryOnOptimisticLockConflict() {
+        Franchise stale = Franchise.builder().id("franchise-1").name("Franchise").active(true).version(1L).build();
+        Franchise fresh = Franchise.builder().id("franchise-1").name("Franchise").active(true).version(2L).build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(franchiseRepository.save(any(Franchise.class)))
+                .thenThrow(new OptimisticLockingFailureException("version mismatch"))
+                .thenReturn(fresh);
+
+        var response = franchiseService.updateFranchiseStatus("franchise-1", new UpdateFranchiseStatusRequest(false));
+
+        assertThat(response.active()).isFalse();
+        verify(franchiseRepository, times(2)).save(any(Franchise.class));
+    }
+
+    @Test
+    void updateFranchiseStatusShouldReportConflictWhenRetriesAreExhausted() {
+        when(franchiseRepository.findById("franchise-1")).thenAnswer(invocation -> Optional.of(
+                Franchise.builder().id("franchise-1").name("Franchise").active(true).version(1L).build()));
+        when(franchiseRepository.save(any(Franchise.class)))
+                .thenThrow(new OptimisticLockingFailureException("version mismatch"));
+
+        assertThrows(ConflictException.class,
+                () -> franchiseService.updateFranchiseStatus("franchise-1", new UpdateFranchiseStatusRequest(false)));
+        verify(franchiseRepository, times(3)).save(any(Franchise.class));
+    }
+
+    @Test
+    void bulkUpdateStockShouldReportPerItemOutcome() {
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .products(new ArrayList<>(List.of(
+                        Product.builder().id("p1").stock(4).build(),
+                        Product.builder().id("p2").stock(5).build())))
+                .build();
+        Franchise snapshot = Franchise.builder()
+                .id("franchise-1")
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+        when(franchiseRepository.findStockSnapshots(any())).thenReturn(List.of(snapshot));
+        when(franchiseRepository.applyStockWrites("franchise-1", List.of(new StockWrite("branch-1", "p1", 7, false))))
+                .thenReturn(List.of(StockWriteResult.applied(7)));
+
+        BulkStockUpdateResponse response = franchiseService.bulkUpdateStock(new BulkStockUpdateRequest(List.of(
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p1", 10, null),
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p1", null, -3),
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p2", null, -50),
+                new BulkStockUpdateItem("franchise-1", "branch-1", "missing", 1, null),
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p1", 5, 1),
+                new BulkStockUpdateItem("franchise-2", "branch-1", "p1", 1, null))));
+
+        assertThat(response.total()).isEqualTo(6);
+        assertThat(response.updated()).isEqualTo(2);
+        assertThat(response.failed()).isEqualTo(4);
+        assertThat(response.results()).extracting(result -> result.status()).containsExactly(
+                BulkStockUpdateStatus.UPDATED,
+                BulkStockUpdateStatus.UPDATED,
+                BulkStockUpdateStatus.INSUFFICIENT_STOCK,
+                BulkStockUpdateStatus.NOT_FOUND,
+                BulkStockUpdateStatus.INVALID,
+                BulkStockUpdateStatus.NOT_FOUND);
+        assertThat(response.results().get(1).stock()).isEqualTo(7);
+    }
+
+    @Test
+    void bulkUpdateStockShouldReportRejectedWritesWithoutFailingAppliedOnes() {
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .products(new ArrayList<>(List.of(
+                        Product.builder().id("p1").stock(4).build(),
+                        Product.builder().id("p2").stock(5).build(),
+                        Product.builder().id("p3").stock(Integer.MAX_VALUE - 1).build())))
+                .build();
+        Franchise snapshot = Franchise.builder()
+                .id("franchise-1")
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+        when(franchiseRepository.findStockSnapshots(any())).thenReturn(List.of(snapshot));
+        when(franchiseRepository.applyStockWrites("franchise-1", List.of(
+                new StockWrite("branch-1", "p1", -4, true),
+                new StockWrite("branch-1", "p2", 2, true))))
+                .thenReturn(List.of(StockWriteResult.rejected(1), StockWriteResult.applied(7)));
+
+        BulkStockUpdateResponse response = franchiseService.bulkUpdateStock(new BulkStockUpdateRequest(List.of(
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p1", null, -4),
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p2", null, 2),
+                new BulkStockUpdateItem("franchise-1", "branch-1", "p3", null, 2))));
+
+        assertThat(response.updated()).isEqualTo(1);
+        assertThat(response.results()).extracting(result -> result.status()).containsExactly(
+                BulkStockUpdateStatus.CONFLICT,
+                BulkStockUpdateStatus.UPDATED,
+                BulkStockUpdateStatus.INVALID);
+        assertThat(response.results()).extracting(result -> result.stock()).containsExactly(1, 7, Integer.MAX_VALUE - 1);
+    }
+
+    @Test
+    void getFranchisePageShouldReturnCursorWhenMoreResultsExist() {
+        when(franchiseRepository.findAllByOrderByIdAsc(Limit.of(3))).thenReturn(List.of(
+                Franchise.builder().id("a").name("A").build(),
+                Franchise.builder().id("b").name("B").build(),
+                Franchise.builder().id("c").name("C").build()));
+
+        PageResponse<FranchiseResponse> firstPage = franchiseService.getFranchisePage(null, 2);
+
+        assertThat(firstPage.items()).extracting(item -> item.id()).containsExactly("a", "b");
+        assertThat(firstPage.nextCursor()).isNotBlank();
+
+        when(franchiseRepository.findByIdGreaterThanOrderByIdAsc("b", Limit.of(3))).thenReturn(List.of(
+                Franchise.builder().id("c").name("C").build()));
+
+        PageResponse<FranchiseResponse> secondPage = franchiseService.getFranchisePage(firstPage.nextCursor(), 2);
+
+        assertThat(secondPage.items()).extracting(item -> item.id()).containsExactly("c");
+        assertThat(secondPage.nextCursor()).isNull();
+    }
+
+    @Test
+    void getFranchisePageShouldRejectOutOfRangeLimit() {
+        assertThrows(BadRequestException.class, () -> franchiseService.getFranchisePage(null, 0));
+        assertThrows(BadRequestException.class, () -> franchiseService.getFranchisePage(null, FranchiseService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void getFranchiseSummaryShouldFailWhenFranchiseMissing() {
+        when(franchiseRepository.findSummaryById("missing")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> franchiseService.getFranchiseSummary("missing"));
+    }
+
+    @Test
+    void getFranchiseSummariesShouldReturnAllWhenNoLimitGiven() {
+        List<FranchiseSummaryResponse> summaries = List.of(new FranchiseSummaryResponse("a", "A", true, 2, 10));
+        when(franchiseRepository.findSummaries(null, null)).thenReturn(summaries);
+
+        PageResponse<FranchiseSummaryResponse> page = franchiseService.getFranchiseSummaries(null, null);
+
+        assertThat(page.items()).isEqualTo(summaries);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void searchProductsShouldPageWithNameAndIdCursor() {
+        when(franchiseRepository.searchProducts("bur", null, null, 3)).thenReturn(List.of(
+                new ProductSearchResult("f1", "Franchise", "b1", "Centro", "p1", "Burger", 4),
+                new ProductSearchResult("f2", "Other", "b2", "Norte", "p2", "burrito", 1),
+                new ProductSearchResult("f1", "Franchise", "b1", "Centro", "p3", "Burrito", 9)));
+
+        PageResponse<ProductSearchResult> firstPage = franchiseService.searchProducts("  bur ", null, 2);
+
+        assertThat(firstPage.items()).extracting(ProductSearchResult::productId).containsExactly("p1", "p2");
+        assertThat(firstPage.nextCursor()).isNotBlank();
+
+        when(franchiseRepository.searchProducts("bur", "burrito", "p2", 3)).thenReturn(List.of(
+                new ProductSearchResult("f1", "Franchise", "b1", "Centro", "p3", "Burrito", 9)));
+
+        PageResponse<ProductSearchResult> secondPage = franchiseService.searchProducts("bur", firstPage.nextCursor(), 2);
+
+        assertThat(secondPage.items()).extracting(ProductSearchResult::productId).containsExactly("p3");
+        assertThat(secondPage.nextCursor()).isNull();
+    }
+
+    @Test
+    void searchProductsShouldRejectMissingQueryAndInvalidCursor() {
+        assertThrows(BadRequestException.class, () -> franchiseService.searchProducts(" ", null, null));
+        assertThrows(BadRequestException.class, () -> franchiseService.searchProducts("a".repeat(FranchiseService.MAX_SEARCH_QUERY_LENGTH + 1), null, null));
+        assertThrows(BadRequestException.class, () -> franchiseService.searchProducts("bur", "bm8tc2VwYXJhdG9y", null));
+    }
+
+    @Test
+    void getSerializedFranchiseShouldServeRepeatedReadsFromCache() {
+        Franchise franchise = Franchise.builder().id("franchise-1").name("Franchise").active(true).build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+        when(franchiseRepository.findVersionById("franchise-1")).thenReturn(Optional.of(0L));
+
+        SerializedResponse first = franchiseService.getSerializedFranchise("franchise-1");
+        SerializedResponse cached = franchiseService.getSerializedFranchise("franchise-1");
+
+        assertThat(cached).isSameAs(first);
+        assertThat(json(cached)).contains("\"name\":\"Franchise\"");
+        verify(franchiseRepository, times(1)).findById("franchise-1");
+    }
+
+    @Test
+    void writesShouldEvictCachedFranchise() {
+        Franchise franchise = Franchise.builder().id("franchise-1").name("Franchise").active(true).build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+        when(franchiseRepository.save(franchise)).thenReturn(franchise);
+
+        franchiseService.getSerializedFranchise("franchise-1");
+        franchiseService.updateFranchiseStatus("franchise-1", new UpdateFranchiseStatusRequest(false));
+        SerializedResponse reloaded = franchiseService.getSerializedFranchise("franchise-1");
+
+        assertThat(json(reloaded)).contains("\"active\":false");
+        verify(franchiseRepository, times(3)).findById("franchise-1");
+    }
+
+    @Test
+    void disabledCacheShouldAlwaysReadFromRepository() {
+        FranchiseCacheProperties properties = new FranchiseCacheProperties();
+        properties.setEnabled(false);
+        FranchiseService uncached = newService(properties);
+        when(franchiseRepository.findById("franchise-1"))
+                .thenReturn(Optional.of(Franchise.builder().id("franchise-1").name("Franchise").build()));
+
+        uncached.getSerializedFranchise("franchise-1");
+        uncached.getSerializedFranchise("franchise-1");
+
+        verify(franchiseRepository, times(2)).findById("franchise-1");
+    }
+
+    @Test
+    void getSerializedFranchiseShouldReloadWhenTheStoredVersionMovedOn() {
+        when(franchiseRepository.findById("franchise-1"))
+                .thenReturn(Optional.of(Franchise.builder().id("franchise-1").name("Franchise").version(3L).build()))
+                .thenReturn(Optional.of(Franchise.builder().id("franchise-1").name("Renamed").version(4L).build()));
+        // Written by another instance: nothing on this one evicted the entry.
+        when(franchiseRepository.findVersionById("franchise-1")).thenReturn(Optional.of(4L));
+
+        assertThat(franchiseService.getSerializedFranchise("franchise-1").tag()).isEqualTo("3");
+        SerializedResponse reloaded = franchiseService.getSerializedFranchise("franchise-1");
+
+        assertThat(reloaded.tag()).isEqualTo("4");
+        assertThat(json(reloaded)).contains("\"name\":\"Renamed\"");
+        assertThat(franchiseService.getSerializedFranchise("franchise-1")).isSameAs(reloaded);
+        verify(franchiseRepository, times(2)).findById("franchise-1");
+    }
+
+    @Test
+    void findFranchiseTagShouldFallBackToVersionProjection() {
+        when(franchiseRepository.findVersionById("franchise-1")).thenReturn(Optional.of(7L));
+
+        assertThat(franchiseService.findFranchiseTag("franchise-1")).contains("7");
+        verify(franchiseRepository, never()).findById(any());
+    }
+
+    @Test
+    void updateFranchiseNameShouldRejectStaleTag() {
+        Franchise franchise = Franchise.builder().id("franchise-1").name("Franchise").version(4L).build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.updateFranchiseName("franchise-1", new UpdateFranchiseNameRequest("Renamed"), "3"));
+
+        verify(franchiseRepository, never()).save(any());
+    }
+
+    @Test
+    void branchAndProductWritesShouldRejectStaleTag() {
+        Product product = Product.builder().id("p1").name("Burger").stock(5).build();
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .products(new ArrayList<>(List.of(product)))
+                .build();
+        Franchise franchise = Franchise.builder()
+                .id("franchise-1")
+                .name("Franchise")
+                .active(true)
+                .version(4L)
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.updateBranchName("franchise-1", "branch-1", new UpdateBranchNameRequest("Norte"), "3"));
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.updateBranchStatus("franchise-1", "branch-1", new UpdateBranchStatusRequest(false), "3"));
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.deleteBranch("franchise-1", "branch-1", "3"));
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.updateProductName("franchise-1", "branch-1", "p1", new UpdateProductNameRequest("Fries"), "3"));
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.deleteProduct("franchise-1", "branch-1", "p1", "3"));
+
+        assertThat(branch.getName()).isEqualTo("Centro");
+        assertThat(branch.getProducts()).containsExactly(product);
+        verify(franchiseRepository, never()).save(any());
+    }
+
+    @Test
+    void updateProductStockShouldPutTheTaggedVersionIntoTheUpdate() {
+        when(franchiseRepository.updateProductStock("franchise-1", "branch-1", "p1", 40, 3L))
+                .thenThrow(new OptimisticLockingFailureException("version moved on"));
+        when(franchiseRepository.updateProductStock("franchise-1", "branch-1", "p1", 40, 4L))
+                .thenReturn(Optional.of(Product.builder().id("p1").name("Burger").stock(40).build()));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.updateProductStock("franchise-1", "branch-1", "p1", new UpdateProductStockRequest(40), "3"));
+        assertThrows(PreconditionFailedException.class,
+                () -> franchiseService.updateProductStock("franchise-1", "branch-1", "p1", new UpdateProductStockRequest(40), "4.2"));
+
+        ProductResponse response = franchiseService.updateProductStock("franchise-1", "branch-1", "p1", new UpdateProductStockRequest(40), "4");
+        assertThat(response.stock()).isEqualTo(40);
+        verify(franchiseRepository, never()).findVersionById(any());
+        verify(franchiseRepository, never()).updateProductStock(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void deleteBranchShouldProceedWhenTagMatches() {
+        Branch branch = Branch.builder().id("branch-1").name("Centro").products(new ArrayList<>()).build();
+        Franchise franchise = Franchise.builder()
+                .id("franchise-1")
+                .name("Franchise")
+                .version(4L)
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+
+        franchiseService.deleteBranch("franchise-1", "branch-1", "4");
+
+        assertThat(franchise.getBranches()).isEmpty();
+        verify(franchiseRepository).save(franchise);
+    }
+
+    @Test
+    void deleteFranchiseShouldProceedWhenTagMatches() {
+        Franchise franchise = Franchise.builder().id("franchise-1").name("Franchise").version(4L).build();
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Optional.of(franchise));
+
+        franchiseService.deleteFranchise("franchise-1", "4");
+
+        verify(franchiseRepository).delete(franchise);
+    }
+
+    @Test
+    void franchisesTagShouldMatchListTagAndChangeWithAnyVersion() {
+        when(franchiseRepository.findVersions())
+                .thenReturn(List.of(Franchise.builder().id("a").version(1L).build(), Franchise.builder().id("b").version(2L).build()))
+                .thenReturn(List.of(Franchise.builder().id("a").version(1L).build(), Franchise.builder().id("b").version(2L).build()))
+                .thenReturn(List.of(Franchise.builder().id("a").version(1L).build(), Franchise.builder().id("b").version(3L).build()));
+        when(franchiseRepository.findAllById(any())).thenReturn(List.of(
+                Franchise.builder().id("b").name("B").version(2L).build(),
+                Franchise.builder().id("a").name("A").version(1L).build()));
+
+        String listTag = franchiseService.getSerializedFranchises().tag();
+
+        assertThat(franchiseService.getFranchisesTag()).isEqualTo(listTag);
+        assertThat(franchiseService.getFranchisesTag()).isNotEqualTo(listTag);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getSerializedFranchisesShouldStitchCachedEntriesAndReloadOnlyStaleOnes() {
+        when(franchiseRepository.findVersions())
+                .thenReturn(List.of(Franchise.builder().id("a").version(1L).build(), Franchise.builder().id("b").version(2L).build()))
+                .thenReturn(List.of(Franchise.builder().id("a").version(1L).build(), Franchise.builder().id("b").version(3L).build()));
+        when(franchiseRepository.findAllById(any()))
+                .thenReturn(List.of(
+                        Franchise.builder().id("a").name("A").version(1L).build(),
+                        Franchise.builder().id("b").name("B").version(2L).build()))
+                .thenReturn(List.of(Franchise.builder().id("b").name("B2").version(3L).build()));
+
+        SerializedResponse first = franchiseService.getSerializedFranchises();
+        SerializedResponse second = franchiseService.getSerializedFranchises();
+
+        assertThat(json(first)).isEqualTo("[{\"id\":\"a\",\"name\":\"A\",\"active\":true,\"branches\":[]},"
+                + "{\"id\":\"b\",\"name\":\"B\",\"active\":true,\"branches\":[]}]");
+        assertThat(json(second)).contains("\"name\":\"A\"").contains("\"name\":\"B2\"");
+        ArgumentCaptor<Iterable<String>> ids = ArgumentCaptor.forClass(Iterable.class);
+        verify(franchiseRepository, times(2)).findAllById(ids.capture());
+        assertThat(ids.getAllValues().get(1)).containsExactly("b");
+    }
+
+    @Test
+    void sparseFieldsetShouldReadProjectionAndBypassCache() {
+        FranchiseFields fields = FranchiseFields.parse("name", null);
+        when(franchiseRepository.findByIdIncluding("franchise-1", fields.projection()))
+                .thenReturn(Optional.of(Franchise.builder().id("franchise-1").name("Franchise").version(2L).build()));
+
+        SerializedResponse first = franchiseService.getSerializedFranchise("franchise-1", fields);
+        SerializedResponse second = franchiseService.getSerializedFranchise("franchise-1", fields);
+
+        assertThat(json(first)).isEqualTo("{\"name\":\"Franchise\"}");
+        assertThat(second.tag()).isEqualTo("2");
+        verify(franchiseRepository, times(2)).findByIdIncluding("franchise-1", fields.projection());
+        verify(franchiseRepository, never()).findById(any());
+    }
+
+    private FranchiseService newService(FranchiseCacheProperties cacheProperties) {
+        OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(new FranchisePersistenceProperties(), new SimpleMeterRegistry());
+        EmbeddedProductStore productStore = new EmbeddedProductStore(franchiseRepository);
+        FranchiseResponseCache responseCache = new FranchiseResponseCache(cacheProperties, new SimpleMeterRegistry(), new ObjectMapper());
+        StockWriteBuffer stockBuffer = new StockWriteBuffer(productStore, responseCache, new FranchisePersistenceProperties(), new SimpleMeterRegistry());
+        return new FranchiseService(franchiseRepository, productStore, retryExecutor, responseCache, stockBuffer);
+    }
+
+    private static String json(SerializedResponse response) {
+        return new String(response.json(), StandardCharsets.UTF_8);
     }
 }
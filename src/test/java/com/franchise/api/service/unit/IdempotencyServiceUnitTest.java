@@ -0,0 +1,157 @@
+package com.franchise.api.service.unit;
+
+import com.franchise.api.config.FranchiseIdempotencyProperties;
+import com.franchise.api.domain.IdempotencyRecord;
+import com.franchise.api.service.IdempotencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceUnitTest {
+
+    private final ConcurrentMap<String, IdempotencyRecord> stored = new ConcurrentHashMap<>();
+    private MongoTemplate mongoTemplate;
+    private FranchiseIdempotencyProperties settings;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        settings = new FranchiseIdempotencyProperties();
+        settings.setLease(Duration.ofMillis(300));
+        settings.setWaitTimeout(Duration.ofSeconds(5));
+        // idempotency_keys kept in a map: a unique id on insert, renewals and the conditional release.
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            if (stored.putIfAbsent(record.getId(), record) != null) {
+                throw new DuplicateKeyException(record.getId());
+            }
+            return record;
+        });
+        when(mongoTemplate.save(any(IdempotencyRecord.class))).thenAnswer(invocation -> {
+            IdempotencyRecord record = invocation.getArgument(0);
+            stored.put(record.getId(), record);
+            return record;
+        });
+        when(mongoTemplate.findById(anyString(), eq(IdempotencyRecord.class)))
+                .thenAnswer(invocation -> copy(stored.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> {
+            Document query = invocation.<Query>getArgument(0).getQueryObject();
+            Instant lease = (Instant) invocation.<Update>getArgument(1).getUpdateObject().get("$set", Document.class).get("leaseExpiresAt");
+            Collection<?> keys = query.get("id", Document.class).get("$in", Collection.class);
+            keys.forEach(key -> stored.computeIfPresent((String) key, (id, record) -> {
+                if (!record.isCompleted()) {
+                    record.setLeaseExpiresAt(lease);
+                }
+                return record;
+            }));
+            return null;
+        }).when(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+        doAnswer(invocation -> {
+            Document query = invocation.<Query>getArgument(0).getQueryObject();
+            stored.computeIfPresent(query.getString("id"), (id, record) -> record.isCompleted()
+                    || query.containsKey("leaseExpiresAt") && !query.get("leaseExpiresAt").equals(record.getLeaseExpiresAt())
+                    ? record
+                    : null);
+            return null;
+        }).when(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stored.clear();
+    }
+
+    @Test
+    void concurrentRepeatShouldWaitForTheFirstExecution() throws Exception {
+        IdempotencyService service = new IdempotencyService(mongoTemplate, settings, new SimpleMeterRegistry());
+        assertThat(service.begin("key", "body")).isEmpty();
+
+        CompletableFuture<Optional<IdempotencyRecord>> repeat = CompletableFuture.supplyAsync(() -> service.begin("key", "body"));
+        Thread.sleep(200);
+        assertThat(repeat).isNotDone();
+
+        service.complete("key", "body", 201, Map.of(), "created".getBytes());
+
+        IdempotencyRecord replayed = repeat.get(5, TimeUnit.SECONDS).orElseThrow();
+        assertThat(replayed.getStatus()).isEqualTo(201);
+        assertThat(replayed.getBody()).isEqualTo("created".getBytes());
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void repeatOnAnotherInstanceShouldNotTakeOverWhileTheLeaseIsRenewed() throws Exception {
+        IdempotencyService first = new IdempotencyService(mongoTemplate, settings, new SimpleMeterRegistry());
+        IdempotencyService second = new IdempotencyService(mongoTemplate, settings, new SimpleMeterRegistry());
+        first.start();
+        try {
+            assertThat(first.begin("key", "body")).isEmpty();
+
+            CompletableFuture<Optional<IdempotencyRecord>> repeat = CompletableFuture.supplyAsync(() -> second.begin("key", "body"));
+            // Runs for several leases; without renewal the repeat would release the claim and execute again.
+            Thread.sleep(1000);
+            assertThat(repeat).isNotDone();
+            assertThat(stored.get("key").isCompleted()).isFalse();
+
+            first.complete("key", "body", 201, Map.of(), "created".getBytes());
+
+            assertThat(repeat.get(5, TimeUnit.SECONDS)).map(IdempotencyRecord::getStatus).contains(201);
+        } finally {
+            first.stop();
+        }
+    }
+
+    @Test
+    void repeatOnAnotherInstanceShouldTakeOverAnExpiredLease() {
+        IdempotencyService crashed = new IdempotencyService(mongoTemplate, settings, new SimpleMeterRegistry());
+        IdempotencyService second = new IdempotencyService(mongoTemplate, settings, new SimpleMeterRegistry());
+        // Never started, so the claim is not renewed, as if its instance had died.
+        assertThat(crashed.begin("key", "body")).isEmpty();
+
+        assertThat(second.begin("key", "body")).isEmpty();
+        // The first claim, the repeat's rejected claim, then its claim once the expired one was released.
+        verify(mongoTemplate, times(3)).insert(any(IdempotencyRecord.class));
+    }
+
+    private static IdempotencyRecord copy(IdempotencyRecord record) {
+        if (record == null) {
+            return null;
+        }
+        return IdempotencyRecord.builder()
+                .id(record.getId())
+                .fingerprint(record.getFingerprint())
+                .completed(record.isCompleted())
+                .startedAt(record.getStartedAt())
+                .leaseExpiresAt(record.getLeaseExpiresAt())
+                .expiresAt(record.getExpiresAt())
+                .status(record.getStatus())
+                .headers(record.getHeaders())
+                .body(record.getBody())
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.franchise.api.service.unit;
+
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.config.ProductStorageMode;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.dto.AdjustProductStockRequest;
+import com.franchise.api.dto.CreateFranchiseRequest;
+import com.franchise.api.dto.FranchiseResponse;
+import com.franchise.api.dto.ProductResponse;
+import com.franchise.api.dto.TopProductPerBranchResponse;
+import com.franchise.api.exception.BadRequestException;
+import com.franchise.api.exception.ConflictException;
+import com.franchise.api.exception.ResourceNotFoundException;
+import com.franchise.api.repository.ReactiveFranchiseRepository;
+import com.franchise.api.service.OptimisticRetryExecutor;
+import com.franchise.api.service.ReactiveFranchiseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveFranchiseServiceUnitTest {
+
+    @Mock
+    private ReactiveFranchiseRepository franchiseRepository;
+
+    private FranchisePersistenceProperties properties;
+    private ReactiveFranchiseService franchiseService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new FranchisePersistenceProperties();
+        OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(properties, new SimpleMeterRegistry());
+        franchiseService = new ReactiveFranchiseService(franchiseRepository, retryExecutor, properties);
+    }
+
+    @Test
+    void createFranchiseShouldPersistNewEntity() {
+        when(franchiseRepository.insert(any(Franchise.class))).thenAnswer(invocation -> {
+            Franchise franchise = invocation.getArgument(0);
+            franchise.setId("generated-id");
+            return Mono.just(franchise);
+        });
+
+        FranchiseResponse response = franchiseService.createFranchise(new CreateFranchiseRequest("  New Franchise ", null)).block();
+
+        assertThat(response.id()).isEqualTo("generated-id");
+        assertThat(response.name()).isEqualTo("New Franchise");
+        assertThat(response.active()).isTrue();
+    }
+
+    @Test
+    void createFranchiseShouldFailWhenNameAlreadyExists() {
+        when(franchiseRepository.insert(any(Franchise.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error index: name_ci")));
+
+        Mono<FranchiseResponse> result = franchiseService.createFranchise(new CreateFranchiseRequest("Existing", null));
+
+        assertThrows(ConflictException.class, result::block);
+    }
+
+    @Test
+    void getFranchiseByIdShouldFailWhenMissing() {
+        when(franchiseRepository.findById("missing")).thenReturn(Mono.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> franchiseService.getFranchiseById("missing").block());
+    }
+
+    @Test
+    void adjustProductStockShouldRetryOnOptimisticLockConflict() {
+        Franchise franchise = franchiseWithProduct(5);
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Mono.just(franchise));
+        when(franchiseRepository.save(franchise))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("stale")))
+                .thenReturn(Mono.just(franchise));
+
+        ProductResponse response = franchiseService
+                .adjustProductStock("franchise-1", "branch-1", "product-1", new AdjustProductStockRequest(-2))
+                .block();
+
+        assertThat(response.stock()).isEqualTo(1);
+        verify(franchiseRepository, times(2)).save(franchise);
+    }
+
+    @Test
+    void adjustProductStockShouldRejectNegativeResult() {
+        Franchise franchise = franchiseWithProduct(1);
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Mono.just(franchise));
+
+        Mono<ProductResponse> result = franchiseService
+                .adjustProductStock("franchise-1", "branch-1", "product-1", new AdjustProductStockRequest(-2));
+
+        assertThrows(BadRequestException.class, result::block);
+    }
+
+    @Test
+    void adjustProductStockShouldRejectOverflow() {
+        Franchise franchise = franchiseWithProduct(Integer.MAX_VALUE - 1);
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Mono.just(franchise));
+
+        Mono<ProductResponse> result = franchiseService
+                .adjustProductStock("franchise-1", "branch-1", "product-1", new AdjustProductStockRequest(2));
+
+        BadRequestException error = assertThrows(BadRequestException.class, result::block);
+        assertThat(error.getMessage()).contains("would overflow");
+        verify(franchiseRepository, never()).save(any());
+    }
+
+    @Test
+    void getTopProductPerBranchShouldPickHighestStock() {
+        Franchise franchise = franchiseWithProduct(5);
+        franchise.getBranches().get(0).addProduct(Product.builder().id("product-2").name("Latte").stock(9).build());
+        when(franchiseRepository.findById("franchise-1")).thenReturn(Mono.just(franchise));
+
+        List<TopProductPerBranchResponse> result = franchiseService.getTopProductPerBranch("franchise-1").collectList().block();
+
+        assertThat(result).singleElement()
+                .satisfies(top -> assertThat(top.product().id()).isEqualTo("product-2"));
+    }
+
+    @Test
+    void constructorShouldRejectCollectionProductStorage() {
+        properties.getProducts().setStorage(ProductStorageMode.COLLECTION);
+        OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(properties, new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class,
+                () -> new ReactiveFranchiseService(franchiseRepository, retryExecutor, properties));
+    }
+
+    private Franchise franchiseWithProduct(int stock) {
+        Product product = Product.builder().id("product-1").name("Espresso").stock(stock).build();
+        Branch branch = Branch.builder()
+                .id("branch-1")
+                .name("Centro")
+                .active(true)
+                .products(new ArrayList<>(List.of(product)))
+                .build();
+        return Franchise.builder()
+                .id("franchise-1")
+                .name("Franchise")
+                .active(true)
+                .branches(new ArrayList<>(List.of(branch)))
+                .build();
+    }
+}
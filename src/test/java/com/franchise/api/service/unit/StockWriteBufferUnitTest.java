@@ -0,0 +1,170 @@
+package com.franchise.api.service.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.franchise.api.config.FranchiseCacheProperties;
+import com.franchise.api.config.FranchisePersistenceProperties;
+import com.franchise.api.domain.Branch;
+import com.franchise.api.domain.Franchise;
+import com.franchise.api.domain.Product;
+import com.franchise.api.repository.ProductStore;
+import com.franchise.api.repository.StockWrite;
+import com.franchise.api.repository.StockWriteResult;
+import com.franchise.api.service.FranchiseResponseCache;
+import com.franchise.api.service.StockWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockWriteBufferUnitTest {
+
+    @Mock
+    private ProductStore productStore;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        FranchiseResponseCache responseCache = new FranchiseResponseCache(new FranchiseCacheProperties(), new SimpleMeterRegistry(), new ObjectMapper());
+        buffer = new StockWriteBuffer(productStore, responseCache, new FranchisePersistenceProperties(), meterRegistry);
+    }
+
+    @Test
+    void shouldCoalesceDeltasIntoOneGuardedIncrement() {
+        stored("p1", 10);
+        when(productStore.applyStockWrites(eq("franchise-1"), anyList())).thenReturn(List.of(StockWriteResult.applied(8)));
+
+        buffer.adjustStock("franchise-1", "branch-1", "p1", -3);
+        buffer.adjustStock("franchise-1", "branch-1", "p1", 5);
+        assertThat(buffer.adjustStock("franchise-1", "branch-1", "p1", -4)).map(Product::getStock).contains(8);
+        buffer.flush();
+
+        verify(productStore, times(1)).findProductStock("franchise-1", "branch-1", "p1");
+        verify(productStore, never()).findStockSnapshots(any());
+        verify(productStore).applyStockWrites("franchise-1", List.of(new StockWrite("branch-1", "p1", -2, true)));
+        assertThat(buffer.revision("franchise-1")).isZero();
+        assertThat(meterRegistry.get("franchise.stock.buffer.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void absoluteValueShouldFlushAsSetIncludingLaterDeltas() {
+        stored("p1", 10);
+        when(productStore.applyStockWrites(eq("franchise-1"), anyList())).thenReturn(List.of(StockWriteResult.applied(45)));
+
+        buffer.adjustStock("franchise-1", "branch-1", "p1", -3);
+        buffer.updateStock("franchise-1", "branch-1", "p1", 50);
+        buffer.adjustStock("franchise-1", "branch-1", "p1", -5);
+        buffer.flush();
+
+        verify(productStore).applyStockWrites("franchise-1", List.of(new StockWrite("branch-1", "p1", 45, false)));
+    }
+
+    @Test
+    void shouldRejectDeltaBelowBufferedStockAndUnknownProducts() {
+        stored("p1", 2);
+
+        assertThat(buffer.adjustStock("franchise-1", "branch-1", "p1", -3)).isEmpty();
+        assertThat(buffer.updateStock("franchise-1", "branch-1", "missing", 1)).isEmpty();
+        buffer.flush();
+
+        verify(productStore, never()).applyStockWrites(any(), anyList());
+    }
+
+    @Test
+    void readsShouldSeeBufferedStockUntilFlushed() {
+        stored("p1", 10);
+        when(productStore.applyStockWrites(eq("franchise-1"), anyList())).thenReturn(List.of(StockWriteResult.applied(7)));
+        buffer.updateStock("franchise-1", "branch-1", "p1", 7);
+
+        Franchise read = snapshot(10);
+        buffer.overlay(List.of(read));
+
+        assertThat(read.getBranches().get(0).getProducts().get(0).getStock()).isEqualTo(7);
+        assertThat(buffer.revision("franchise-1")).isPositive();
+        assertThat(meterRegistry.get("franchise.stock.buffer.pending").gauge().value()).isEqualTo(1);
+
+        buffer.flush();
+        Franchise flushed = snapshot(10);
+        buffer.overlay(List.of(flushed));
+
+        assertThat(flushed.getBranches().get(0).getProducts().get(0).getStock()).isEqualTo(10);
+        assertThat(meterRegistry.get("franchise.stock.buffer.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void rejectedWriteShouldOnlyDropThatProduct() {
+        stored("p1", 10);
+        stored("p2", 4);
+        when(productStore.applyStockWrites(eq("franchise-1"), anyList())).thenAnswer(invocation -> {
+            List<StockWrite> writes = invocation.getArgument(1);
+            return writes.stream()
+                    .map(write -> write.productId().equals("p1") ? StockWriteResult.rejected(2) : StockWriteResult.applied(6))
+                    .toList();
+        });
+        buffer.adjustStock("franchise-1", "branch-1", "p1", -10);
+        buffer.adjustStock("franchise-1", "branch-1", "p2", 2);
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(productStore, times(1)).applyStockWrites(eq("franchise-1"), anyList());
+        assertThat(meterRegistry.get("franchise.stock.buffer.dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("franchise.stock.buffer.pending").gauge().value()).isZero();
+        assertThat(buffer.revision("franchise-1")).isZero();
+    }
+
+    @Test
+    void writesBufferedDuringARejectedFlushShouldReplayOnStoredStock() {
+        stored("p1", 10);
+        when(productStore.applyStockWrites(eq("franchise-1"), anyList()))
+                .thenAnswer(invocation -> {
+                    // Another request adds stock while the first flush is in flight.
+                    buffer.adjustStock("franchise-1", "branch-1", "p1", 5);
+                    return List.of(StockWriteResult.rejected(3));
+                })
+                .thenReturn(List.of(StockWriteResult.applied(8)));
+        buffer.adjustStock("franchise-1", "branch-1", "p1", -10);
+
+        buffer.flush();
+        Franchise read = snapshot(3);
+        buffer.overlay(List.of(read));
+        buffer.flush();
+
+        assertThat(read.getBranches().get(0).getProducts().get(0).getStock()).isEqualTo(8);
+        verify(productStore).applyStockWrites("franchise-1", List.of(new StockWrite("branch-1", "p1", 5, true)));
+        assertThat(meterRegistry.get("franchise.stock.buffer.dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("franchise.stock.buffer.pending").gauge().value()).isZero();
+    }
+
+    private void stored(String productId, int stock) {
+        when(productStore.findProductStock("franchise-1", "branch-1", productId))
+                .thenReturn(Optional.of(Product.builder().id(productId).name("Product").stock(stock).build()));
+    }
+
+    private static Franchise snapshot(int... stocks) {
+        List<Product> products = new ArrayList<>();
+        for (int index = 0; index < stocks.length; index++) {
+            products.add(Product.builder().id("p" + (index + 1)).name("Product " + (index + 1)).stock(stocks[index]).build());
+        }
+        Branch branch = Branch.builder().id("branch-1").name("Centro").products(products).build();
+        return Franchise.builder().id("franchise-1").name("Franchise").branches(new ArrayList<>(List.of(branch))).build();
+    }
+}